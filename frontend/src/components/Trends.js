@@ -1,20 +1,74 @@
-import React from 'react';
+import React, { useState, useEffect } from 'react';
+import apiClient from '../services/api';
+
+const DAY_LABELS = ['일', '월', '화', '수', '목', '금', '토'];
+
+// yyyy-MM-dd in the browser's local time zone; toISOString would shift to UTC
+const toIsoDate = (date) => {
+  const month = String(date.getMonth() + 1).padStart(2, '0');
+  const day = String(date.getDate()).padStart(2, '0');
+  return `${date.getFullYear()}-${month}-${day}`;
+};
+
+// The last 7 days ending today, oldest first
+const lastSevenDays = () => {
+  const days = [];
+  for (let i = 6; i >= 0; i--) {
+    const date = new Date();
+    date.setDate(date.getDate() - i);
+    days.push(date);
+  }
+  return days;
+};
 
 const Trends = () => {
+  const [totals, setTotals] = useState([]);
+  const [error, setError] = useState('');
+
+  useEffect(() => {
+    const days = lastSevenDays();
+    const fetchTrends = async () => {
+      try {
+        // One pre-aggregated row per day instead of every entry
+        const response = await apiClient.get('/api/diary/diaries/aggregates', {
+          params: { from: toIsoDate(days[0]), to: toIsoDate(days[6]) },
+        });
+        const caloriesByDate = {};
+        (response.data.data || []).forEach((day) => {
+          caloriesByDate[day.date] = day.totalCalories;
+        });
+        setTotals(days.map((date) => ({
+          label: DAY_LABELS[date.getDay()],
+          calories: caloriesByDate[toIsoDate(date)] || 0,
+        })));
+      } catch (err) {
+        setError('칼로리 기록을 불러오지 못했습니다.');
+      }
+    };
+    fetchTrends();
+  }, []);
+
+  const max = Math.max(1, ...totals.map((day) => day.calories));
+
   return (
     <div className="card trends-card">
       <h3>주간 칼로리 섭취량</h3>
       <div className="chart-placeholder">
-        <p>지난 7일간의 칼로리 섭취량 그래프가 여기에 표시됩니다.</p>
-        <div style={{ display: 'flex', justifyContent: 'space-around', alignItems: 'flex-end', height: '150px', border: '1px solid #eee', padding: '10px' }}>
-          <div style={{ height: '60%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>월</div>
-          <div style={{ height: '80%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>화</div>
-          <div style={{ height: '70%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>수</div>
-          <div style={{ height: '90%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>목</div>
-          <div style={{ height: '75%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>금</div>
-          <div style={{ height: '85%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>토</div>
-          <div style={{ height: '65%', backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}>일</div>
-        </div>
+        {error ? (
+          <p>{error}</p>
+        ) : (
+          <div style={{ display: 'flex', justifyContent: 'space-around', alignItems: 'flex-end', height: '150px', border: '1px solid #eee', padding: '10px' }}>
+            {totals.map((day, index) => (
+              <div
+                key={index}
+                title={`${Math.round(day.calories)} kcal`}
+                style={{ height: `${Math.max(5, (day.calories / max) * 100)}%`, backgroundColor: 'var(--primary-color)', width: '20px', textAlign: 'center', color: 'white' }}
+              >
+                {day.label}
+              </div>
+            ))}
+          </div>
+        )}
       </div>
     </div>
   );
@@ -1,4 +1,4 @@
-import React, { createContext, useContext, useState, useEffect, useCallback } from 'react';
+import React, { createContext, useContext, useState, useEffect, useCallback, useRef } from 'react';
 import apiClient from '../services/api';
 
 // Helper to parse JWT
@@ -40,6 +40,13 @@ export const AuthProvider = ({ children }) => {
   const [loading, setLoading] = useState(false);
   const [initialLoading, setInitialLoading] = useState(true);
   const isAuthenticated = !!user;
+  const adminListeners = useRef(new Set());
+
+  // Lets admin pages receive messages from the notification WebSocket (e.g. STATS_DELTA).
+  const subscribeAdminEvents = useCallback((listener) => {
+    adminListeners.current.add(listener);
+    return () => adminListeners.current.delete(listener);
+  }, []);
 
   const logout = useCallback(async () => {
     try {
@@ -86,33 +93,59 @@ export const AuthProvider = ({ children }) => {
   }, []);
 
   useEffect(() => {
+    // Handshakes rejected in a row (closed before opening) before giving up and logging out
+    const MAX_FAILED_HANDSHAKES = 5;
     let ws = null;
-
-    if (isAuthenticated && user && (user.role === 'ADMIN' || user.role === 'SUPER_ADMIN')) {
+    let reconnectTimer = null;
+    let attempts = 0;
+    let failedHandshakes = 0;
+    let closedByClient = false;
+    // Carried across reconnects so the server can resume the session and replay what was missed.
+    let resumeToken = null;
+    let lastSeq = null;
+
+    const connect = () => {
       const token = sessionStorage.getItem('accessToken');
       
       // Dynamically construct WebSocket URL based on browser location
       const protocol = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
       const host = window.location.host;
-      const wsUrl = `${protocol}//${host}/api/auth/ws?token=${token}`;
+      const params = new URLSearchParams();
+      if (resumeToken) params.set('resume', resumeToken);
+      if (lastSeq !== null) params.set('lastSeq', lastSeq);
+      if (token) params.set('token', token);
+      const wsUrl = `${protocol}//${host}/api/auth/ws?${params.toString()}`;
       
-      console.log('[WebSocket] Connecting to', wsUrl);
+      console.log('[WebSocket] Connecting', resumeToken ? '(resume)' : '');
 
       ws = new WebSocket(wsUrl);
+      let opened = false;
 
       ws.onopen = () => {
         console.log('[WebSocket] Connection established.');
+        opened = true;
+        attempts = 0;
+        failedHandshakes = 0;
       };
 
       ws.onmessage = (event) => {
         console.log('[WebSocket] Message received:', event.data);
         try {
           const message = JSON.parse(event.data);
+          if (message.type === 'CONNECTION_SUCCESS') {
+            resumeToken = message.resumeToken || null;
+            if (lastSeq === null) lastSeq = message.seq;
+          } else if (typeof message.seq === 'number') {
+            // Replayed and live copies of the same message may both arrive
+            if (lastSeq !== null && message.seq <= lastSeq) return;
+            lastSeq = message.seq;
+          }
           if (message.type === 'FORCED_LOGOUT_NOTICE') {
             const details = message.newLoginDetails;
             alert(`현재 세션이 비활성화되었습니다.\n사유: 새로운 기기에서 로그인\n\n- 접속 IP: ${details.ipAddress}\n- 접속 환경: ${details.userAgent}\n\n본인 활동이 아닌 경우 즉시 비밀번호를 변경하세요.`);
             logout();
           }
+          adminListeners.current.forEach(listener => listener(message));
         } catch (e) {
           console.error('[WebSocket] Error parsing message:', e);
         }
@@ -123,11 +156,30 @@ export const AuthProvider = ({ children }) => {
       };
 
       ws.onclose = (event) => {
-        console.log('[WebSocket] Connection closed:', event.reason);
+        console.log('[WebSocket] Connection closed:', event.code, event.reason);
+        // 1008 (policy violation) means the server revoked the session; do not come back.
+        if (closedByClient || event.code === 1008) return;
+        if (!opened) {
+          failedHandshakes += 1;
+          if (failedHandshakes >= MAX_FAILED_HANDSHAKES) {
+            console.warn('[WebSocket] Handshake rejected repeatedly. Logging out.');
+            logout();
+            return;
+          }
+        }
+        const delay = Math.min(30000, 1000 * 2 ** attempts) * (0.5 + Math.random() / 2);
+        attempts += 1;
+        reconnectTimer = setTimeout(connect, delay);
       };
+    };
+
+    if (isAuthenticated && user && (user.role === 'ADMIN' || user.role === 'SUPER_ADMIN')) {
+      connect();
     }
 
     return () => {
+      closedByClient = true;
+      clearTimeout(reconnectTimer);
       if (ws) {
         console.log('[WebSocket] Closing connection.');
         ws.close();
@@ -184,6 +236,7 @@ export const AuthProvider = ({ children }) => {
     login,
     logout,
     isAuthenticated,
+    subscribeAdminEvents,
   };
 
   return (
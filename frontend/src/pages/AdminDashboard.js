@@ -66,10 +66,14 @@ const SessionModal = ({ user, onClose, onInvalidate }) => {
 
 
 const AdminDashboard = () => {
-    const { user } = useAuth();
+    const { user, subscribeAdminEvents } = useAuth();
     const [users, setUsers] = useState([]);
+    const [usersCursor, setUsersCursor] = useState(null);
+    const [userQuery, setUserQuery] = useState('');
+    const [userRole, setUserRole] = useState('');
     const [sessionStats, setSessionStats] = useState(null);
     const [forceLogoutHistory, setForceLogoutHistory] = useState([]);
+    const [historyCursor, setHistoryCursor] = useState(null);
     const [tokenToBlacklist, setTokenToBlacklist] = useState('');
     const [selectedUser, setSelectedUser] = useState(null); // For modal
     const [loading, setLoading] = useState({
@@ -80,12 +84,18 @@ const AdminDashboard = () => {
         blacklist: false,
     });
 
-    const fetchUsers = useCallback(async () => {
+    const fetchUsers = useCallback(async (cursor = null, q = '', role = '') => {
         setLoading(prev => ({ ...prev, users: true }));
         try {
-            const response = await apiClient.get('/api/auth/admin/users');
+            const params = {};
+            if (cursor) params.cursor = cursor;
+            if (q) params.q = q;
+            if (role) params.role = role;
+            const response = await apiClient.get('/api/auth/admin/users', { params });
             if (response.data.success) {
-                setUsers(response.data.data);
+                const { items, nextCursor } = response.data.data;
+                setUsers(prev => (cursor ? [...prev, ...items] : items));
+                setUsersCursor(nextCursor);
             }
         } catch (error) {
             console.error('Failed to fetch users:', error);
@@ -109,12 +119,16 @@ const AdminDashboard = () => {
         }
     }, []);
 
-    const loadForceLogoutHistory = useCallback(async () => {
+    const loadForceLogoutHistory = useCallback(async (cursor = null) => {
         setLoading(prev => ({ ...prev, history: true }));
         try {
-            const response = await apiClient.get('/api/auth/admin/force-logout-history');
+            const response = await apiClient.get('/api/auth/admin/force-logout-history', {
+                params: cursor ? { cursor } : {}
+            });
             if (response.data.success) {
-                setForceLogoutHistory(response.data.data);
+                const { items, nextCursor } = response.data.data;
+                setForceLogoutHistory(prev => (cursor ? [...prev, ...items] : items));
+                setHistoryCursor(nextCursor);
             }
         } catch (error) {
             console.error('Force logout history load failed:', error);
@@ -135,6 +149,35 @@ const AdminDashboard = () => {
         }
     }, [user, fetchUsers, loadSessionStats, loadForceLogoutHistory]);
 
+    // 세션 통계는 웹소켓 STATS_DELTA로 갱신하고, 주기적인 STATS_SNAPSHOT으로 절대값을 다시 맞춘다.
+    // 델타는 재전송되지 않으므로 재연결이나 RESYNC_REQUIRED 후에는 REST로 다시 조회한다.
+    useEffect(() => subscribeAdminEvents(message => {
+        if (message.type === 'CONNECTION_SUCCESS' || message.type === 'RESYNC_REQUIRED') {
+            loadSessionStats();
+            return;
+        }
+        if (message.type === 'STATS_SNAPSHOT') {
+            setSessionStats(prev => prev && ({
+                ...prev,
+                activeSessionsApprox: message.activeSessionsApprox ?? prev.activeSessionsApprox,
+                blacklistedTokens: message.blacklistedTokens ?? prev.blacklistedTokens,
+                loginsPerMinute: message.loginsPerMinute,
+                throttledPerMinute: message.throttledPerMinute,
+                timestamp: message.timestamp,
+            }));
+            return;
+        }
+        if (message.type !== 'STATS_DELTA') return;
+        setSessionStats(prev => prev && ({
+            ...prev,
+            activeSessionsApprox: prev.activeSessionsApprox + message.activeSessions,
+            blacklistedTokens: prev.blacklistedTokens + message.blacklistedTokens,
+            loginsPerMinute: message.loginsPerMinute,
+            throttledPerMinute: message.throttledPerMinute,
+            timestamp: message.timestamp,
+        }));
+    }), [subscribeAdminEvents, loadSessionStats]);
+
     const forceLogoutUser = async (userId, userName) => {
         if (!window.confirm(`사용자 '${userName}'(ID: ${userId})님을 강제 로그아웃하시겠습니까? 모든 기기에서 즉시 로그아웃됩니다.`)) {
             return;
@@ -144,7 +187,6 @@ const AdminDashboard = () => {
             const response = await apiClient.post(`/api/auth/admin/force-logout/${userId}`);
             if (response.data.success) {
                 alert(`사용자(ID: ${userId})가 강제 로그아웃되었습니다.`);
-                loadSessionStats();
                 loadForceLogoutHistory(); // 히스토리도 갱신
             }
         } catch (error) {
@@ -166,7 +208,6 @@ const AdminDashboard = () => {
             if (response.data.success) {
                 alert('토큰이 성공적으로 무효화되었습니다.');
                 setTokenToBlacklist('');
-                loadSessionStats();
                 if (selectedUser) {
                     setSelectedUser(null); // Close modal on success
                 }
@@ -208,10 +249,28 @@ const AdminDashboard = () => {
                                     <span className="info-icon">?</span>
                                 </Tooltip>
                             </h2>
-                            <button onClick={fetchUsers} disabled={loading.users} className="btn-secondary">
+                            <button onClick={() => fetchUsers(null, userQuery, userRole)} disabled={loading.users} className="btn-secondary">
                                 {loading.users ? '...' : '🔄'}
                             </button>
                         </div>
+                        <form
+                            className="user-search"
+                            onSubmit={e => { e.preventDefault(); fetchUsers(null, userQuery, userRole); }}
+                        >
+                            <input
+                                type="text"
+                                value={userQuery}
+                                onChange={e => setUserQuery(e.target.value)}
+                                placeholder="이메일 또는 이름 검색"
+                            />
+                            <select value={userRole} onChange={e => setUserRole(e.target.value)}>
+                                <option value="">전체 권한</option>
+                                <option value="USER">USER</option>
+                                <option value="ADMIN">ADMIN</option>
+                                <option value="SUPER_ADMIN">SUPER_ADMIN</option>
+                            </select>
+                            <button type="submit" className="btn-secondary" disabled={loading.users}>검색</button>
+                        </form>
                         <div className="user-table-container">
                             <table className="user-table">
                                 <thead>
@@ -244,6 +303,15 @@ const AdminDashboard = () => {
                                     ))}
                                 </tbody>
                             </table>
+                            {usersCursor && (
+                                <button
+                                    onClick={() => fetchUsers(usersCursor, userQuery, userRole)}
+                                    disabled={loading.users}
+                                    className="btn-secondary"
+                                >
+                                    {loading.users ? '...' : '더 보기'}
+                                </button>
+                            )}
                         </div>
                     </div>
 
@@ -256,12 +324,12 @@ const AdminDashboard = () => {
                                     <span className="info-icon">?</span>
                                 </Tooltip>
                             </h2>
-                            <button onClick={loadForceLogoutHistory} disabled={loading.history} className="btn-secondary">
+                            <button onClick={() => loadForceLogoutHistory()} disabled={loading.history} className="btn-secondary">
                                 {loading.history ? '...' : '🔄'}
                             </button>
                         </div>
                         
-                        {loading.history ? (
+                        {loading.history && forceLogoutHistory.length === 0 ? (
                             <p>히스토리를 불러오는 중...</p>
                         ) : forceLogoutHistory.length > 0 ? (
                             <div className="history-table-container">
@@ -319,6 +387,15 @@ const AdminDashboard = () => {
                                         ))}
                                     </tbody>
                                 </table>
+                                {historyCursor && (
+                                    <button
+                                        onClick={() => loadForceLogoutHistory(historyCursor)}
+                                        disabled={loading.history}
+                                        className="btn-secondary"
+                                    >
+                                        {loading.history ? '...' : '더 보기'}
+                                    </button>
+                                )}
                             </div>
                         ) : (
                             <p>강제 로그아웃 기록이 없습니다.</p>
@@ -378,6 +455,12 @@ const AdminDashboard = () => {
                                 <div className="stat-item">
                                     <strong>무효화된 토큰:</strong> {sessionStats.blacklistedTokens}
                                 </div>
+                                <div className="stat-item">
+                                    <strong>분당 로그인:</strong> {sessionStats.loginsPerMinute ?? 0}
+                                </div>
+                                <div className="stat-item">
+                                    <strong>분당 로그인 실패:</strong> {sessionStats.throttledPerMinute ?? 0}
+                                </div>
                                 <div className="stat-item">
                                     <strong>마지막 업데이트:</strong> {new Date(sessionStats.timestamp).toLocaleString()}
                                 </div>
@@ -0,0 +1,34 @@
+package com.dietdiary.gateway.actuator;
+
+import com.dietdiary.gateway.service.HeavyHitterTracker;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/heavyhitters} lists the top users, client IPs and routes by recent request count;
+ * {@code /actuator/heavyhitters/{dimension}} lists one of them.
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+public class HeavyHittersEndpoint {
+
+    private final HeavyHitterTracker tracker;
+
+    public HeavyHittersEndpoint(HeavyHitterTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Long>> heavyHitters() {
+        return tracker.topAll();
+    }
+
+    @ReadOperation
+    public Map<String, Long> heavyHitters(@Selector String dimension) {
+        return tracker.top(dimension);
+    }
+}
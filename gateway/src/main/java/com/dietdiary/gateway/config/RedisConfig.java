@@ -1,38 +1,83 @@
 package com.dietdiary.gateway.config;
 
+import io.lettuce.core.ReadFrom;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+/**
+ * The gateway's own connection is Boot's auto-configured one, so Sentinel and Cluster are switched on through
+ * {@code spring.data.redis.sentinel.*} / {@code cluster.*} alone. The only addition is {@code replicaRedisTemplate}
+ * for the per-request revocation lookups: same topology and credentials, but reading per
+ * {@code app.redis.read-from} so that those GETs stay off the master. Its factory is not a bean, as any
+ * {@link RedisConnectionFactory} bean would make Boot back off from the primary one.
+ */
 @Configuration
-public class RedisConfig {
+public class RedisConfig implements DisposableBean {
 
-    @Value("${spring.data.redis.host}")
-    private String redisHost;
-
-    @Value("${spring.data.redis.port}")
-    private int redisPort;
+    private LettuceConnectionFactory replicaConnectionFactory;
 
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        return new LettuceConnectionFactory(redisHost, redisPort);
+    @Primary
+    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+        return stringTemplate(connectionFactory);
     }
 
     @Bean
-    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, String> replicaRedisTemplate(LettuceConnectionFactory connectionFactory,
+                                                              @Value("${app.redis.read-from:replicaPreferred}") String readFrom) {
+        LettuceClientConfiguration primary = connectionFactory.getClientConfiguration();
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .readFrom(ReadFrom.valueOf(readFrom))
+                .commandTimeout(primary.getCommandTimeout())
+                .shutdownTimeout(primary.getShutdownTimeout());
+        primary.getClientOptions().ifPresent(builder::clientOptions);
+        primary.getClientResources().ifPresent(builder::clientResources);
+        if (primary.isUseSsl()) {
+            builder.useSsl();
+        }
+
+        replicaConnectionFactory = new LettuceConnectionFactory(topology(connectionFactory), builder.build());
+        replicaConnectionFactory.afterPropertiesSet();
+        replicaConnectionFactory.start();
+        return stringTemplate(replicaConnectionFactory);
+    }
+
+    @Override
+    public void destroy() {
+        if (replicaConnectionFactory != null) {
+            replicaConnectionFactory.destroy();
+        }
+    }
+
+    private static RedisConfiguration topology(LettuceConnectionFactory connectionFactory) {
+        if (connectionFactory.getClusterConfiguration() != null) {
+            return connectionFactory.getClusterConfiguration();
+        }
+        if (connectionFactory.getSentinelConfiguration() != null) {
+            return connectionFactory.getSentinelConfiguration();
+        }
+        return connectionFactory.getStandaloneConfiguration();
+    }
+
+    private static RedisTemplate<String, String> stringTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
-        
+
         StringRedisSerializer stringSerializer = new StringRedisSerializer();
         template.setKeySerializer(stringSerializer);
         template.setValueSerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
         template.setHashValueSerializer(stringSerializer);
-        
+
         template.afterPropertiesSet();
         return template;
     }
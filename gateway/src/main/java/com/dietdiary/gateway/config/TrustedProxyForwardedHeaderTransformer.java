@@ -0,0 +1,143 @@
+package com.dietdiary.gateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.adapter.ForwardedHeaderTransformer;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Takes the place of Boot's {@code server.forward-headers-strategy: framework} transformer (the web handler
+ * looks it up by bean name) so that forwarded headers are only honoured when the connection comes from a proxy
+ * listed in {@code app.trusted-proxies}.
+ * <p>
+ * The stock transformer takes the client from the left-most X-Forwarded-For entry, which is whatever the client
+ * sent. Here the remote address becomes the right-most entry that is not itself a trusted proxy, i.e. the address
+ * the first trusted hop saw and appended. Requests from anywhere else keep their socket address and have the
+ * forwarded headers stripped, so nothing downstream (heavy hitters, the X-Forwarded-For sent to the services)
+ * can be steered by a spoofed header.
+ */
+@Component("forwardedHeaderTransformer")
+public class TrustedProxyForwardedHeaderTransformer extends ForwardedHeaderTransformer {
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final List<Cidr> trustedProxies = new ArrayList<>();
+    private final ForwardedHeaderTransformer stripOnly = new ForwardedHeaderTransformer();
+
+    public TrustedProxyForwardedHeaderTransformer(
+            @Value("${app.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16}")
+            List<String> trustedProxies) {
+        for (String proxy : trustedProxies) {
+            if (!proxy.isBlank()) {
+                this.trustedProxies.add(Cidr.parse(proxy.trim()));
+            }
+        }
+        stripOnly.setRemoveOnly(true);
+    }
+
+    @Override
+    public ServerHttpRequest apply(ServerHttpRequest request) {
+        InetSocketAddress peer = request.getRemoteAddress();
+        if (peer == null || !isTrusted(peer.getAddress())) {
+            return stripOnly.apply(request);
+        }
+        InetAddress client = appendedClient(request.getHeaders().get(X_FORWARDED_FOR));
+        return super.apply(request).mutate()
+                .remoteAddress(client != null ? new InetSocketAddress(client, 0) : peer)
+                .build();
+    }
+
+    /**
+     * @return The right-most X-Forwarded-For address that is not a trusted proxy, or null (keep the socket peer)
+     *         if there is no header or the entry a trusted proxy appended is not an IP literal.
+     */
+    private InetAddress appendedClient(List<String> headerValues) {
+        if (headerValues == null || headerValues.isEmpty()) {
+            return null;
+        }
+        List<String> hops = new ArrayList<>();
+        for (String value : headerValues) {
+            for (String hop : value.split(",")) {
+                hops.add(hop.trim());
+            }
+        }
+        InetAddress last = null;
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            InetAddress address = parseLiteral(hops.get(i));
+            if (address == null) {
+                return null;
+            }
+            if (!isTrusted(address)) {
+                return address;
+            }
+            last = address;
+        }
+        return last;
+    }
+
+    private boolean isTrusted(InetAddress address) {
+        if (address == null) {
+            return false;
+        }
+        for (Cidr cidr : trustedProxies) {
+            if (cidr.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal without ever falling back to a DNS lookup.
+     */
+    private static InetAddress parseLiteral(String hop) {
+        String host = hop.startsWith("[") && hop.endsWith("]") ? hop.substring(1, hop.length() - 1) : hop;
+        if (host.isEmpty() || !host.matches("[0-9A-Fa-f:.]+") || (host.indexOf(':') < 0 && !host.matches("[0-9.]+"))) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(host);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record Cidr(byte[] network, int prefixLength) {
+
+        static Cidr parse(String value) {
+            int slash = value.indexOf('/');
+            InetAddress address = parseLiteral(slash < 0 ? value : value.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("Invalid trusted proxy: " + value);
+            }
+            byte[] network = address.getAddress();
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            return new Cidr(network, prefixLength);
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] candidate = address.getAddress();
+            if (candidate.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (candidate[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = (0xff << (8 - remainingBits)) & 0xff;
+            return (candidate[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dietdiary.gateway.controller;
+
+import com.dietdiary.gateway.service.ActiveUserTracker;
+import com.dietdiary.gateway.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admin analytics served by the gateway itself. Not a proxied route: handler methods take precedence
+ * over route predicates, and no route matches {@code /api/gateway/**}.
+ */
+@RestController
+@RequestMapping("/api/gateway/admin")
+public class AnalyticsController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+
+    private final ActiveUserTracker activeUserTracker;
+    private final JwtUtil jwtUtil;
+
+    public AnalyticsController(ActiveUserTracker activeUserTracker, JwtUtil jwtUtil) {
+        this.activeUserTracker = activeUserTracker;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @GetMapping("/active-users")
+    public Mono<ResponseEntity<Map<String, Object>>> getActiveUsers(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        return Mono.fromCallable(() -> {
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                return error(HttpStatus.UNAUTHORIZED, "인증이 필요합니다.");
+            }
+            String token = authHeader.substring(7);
+            if (!jwtUtil.validateToken(token)) {
+                return error(HttpStatus.UNAUTHORIZED, "유효하지 않은 토큰입니다.");
+            }
+            if (!"ADMIN".equals(jwtUtil.getRoleFromToken(token))) {
+                return error(HttpStatus.FORBIDDEN, "관리자 권한이 필요합니다.");
+            }
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("success", true);
+            body.put("message", "활성 사용자 통계 조회 성공");
+            body.put("data", activeUserTracker.activeUsers());
+            return ResponseEntity.ok(body);
+        }).subscribeOn(Schedulers.boundedElastic())
+          .onErrorResume(e -> {
+              logger.error("[ActiveUsers] Failed to read active users: {}", e.getMessage());
+              return Mono.just(error(HttpStatus.INTERNAL_SERVER_ERROR, "활성 사용자 통계 조회 중 오류가 발생했습니다."));
+          });
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", message);
+        return ResponseEntity.status(status).body(body);
+    }
+}
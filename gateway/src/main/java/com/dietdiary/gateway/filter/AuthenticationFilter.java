@@ -1,11 +1,15 @@
 package com.dietdiary.gateway.filter;
 
+import com.dietdiary.gateway.service.ActiveUserTracker;
+import com.dietdiary.gateway.service.HeavyHitterTracker;
 import com.dietdiary.gateway.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -24,6 +28,12 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ActiveUserTracker activeUserTracker;
+
+    @Autowired
+    private HeavyHitterTracker heavyHitterTracker;
+
     public AuthenticationFilter() {
         super(Config.class);
     }
@@ -86,6 +96,9 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
 
             String email = jwtUtil.getEmailFromToken(token);
             Long userId = jwtUtil.getUserIdFromToken(token);
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            activeUserTracker.record(userId, route != null ? route.getId() : null);
+            heavyHitterTracker.recordUser(userId);
 
             ServerHttpRequest newRequest = request.mutate()
                     .header("X-User-Email", email)
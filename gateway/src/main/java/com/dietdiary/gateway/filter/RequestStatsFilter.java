@@ -0,0 +1,44 @@
+package com.dietdiary.gateway.filter;
+
+import com.dietdiary.gateway.service.HeavyHitterTracker;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Feeds every routed request, authenticated or not, into {@link HeavyHitterTracker} by client IP and route.
+ * The remote address is the hop a trusted proxy appended to X-Forwarded-For, or the socket peer when the request
+ * did not come through one (see {@link com.dietdiary.gateway.config.TrustedProxyForwardedHeaderTransformer}).
+ */
+@Component
+public class RequestStatsFilter implements GlobalFilter, Ordered {
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    public RequestStatsFilter(HeavyHitterTracker heavyHitterTracker) {
+        this.heavyHitterTracker = heavyHitterTracker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        heavyHitterTracker.recordRequest(
+                remoteAddress != null && remoteAddress.getAddress() != null
+                        ? remoteAddress.getAddress().getHostAddress() : null,
+                route != null ? route.getId() : null);
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,170 @@
+package com.dietdiary.gateway.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Counts distinct active users with Redis HyperLogLogs, one per day ({@code {gw:au}:d:<yyyyMMdd>})
+ * and one per route and day ({@code {gw:au}:r:<routeId>:<yyyyMMdd>}).
+ * <p>
+ * The request path only raises the registers of an in-process {@link HyperLogLogRegisters} per sketch, a
+ * constant 16 KB however many users are seen, and nothing is written to Redis while serving. Every
+ * {@code app.analytics.flush-interval-ms} each sketch that changed is written under a temporary key and
+ * {@code PFMERGE}d into its Redis sketch. The local registers are kept for the whole day, and merging is
+ * idempotent, so nothing is swapped out from under a concurrent {@link #record} and a failed flush is simply
+ * retried. Each Redis sketch is 12 KB (dense after the first merge), and WAU/MAU are {@code PFCOUNT} unions
+ * over the daily keys. The shared hash tag keeps the merges and unions on one slot in cluster mode.
+ */
+@Service
+public class ActiveUserTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveUserTracker.class);
+    private static final String DAILY_PREFIX = "{gw:au}:d:";
+    private static final String ROUTE_PREFIX = "{gw:au}:r:";
+    private static final String MERGE_SOURCE_PREFIX = "{gw:au}:tmp:";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Duration RETENTION = Duration.ofDays(35);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final GatewayProperties gatewayProperties;
+    private final ZoneId zone;
+    private final Map<String, Sketch> sketches = new ConcurrentHashMap<>();
+    private final byte[] mergeSourceKey = (MERGE_SOURCE_PREFIX + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+
+    public ActiveUserTracker(RedisTemplate<String, String> redisTemplate, GatewayProperties gatewayProperties,
+                             @Value("${app.analytics.zone:Asia/Seoul}") String zone) {
+        this.redisTemplate = redisTemplate;
+        this.gatewayProperties = gatewayProperties;
+        this.zone = ZoneId.of(zone);
+    }
+
+    /**
+     * Records an authenticated request. In-memory only.
+     */
+    public void record(Long userId, String routeId) {
+        if (userId == null) {
+            return;
+        }
+        String day = LocalDate.now(zone).format(DAY);
+        String member = String.valueOf(userId);
+        sketch(DAILY_PREFIX + day, day).add(member);
+        if (routeId != null) {
+            sketch(ROUTE_PREFIX + routeId + ":" + day, day).add(member);
+        }
+    }
+
+    private Sketch sketch(String key, String day) {
+        Sketch sketch = sketches.get(key);
+        return sketch != null ? sketch : sketches.computeIfAbsent(key, k -> new Sketch(day));
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval-ms:10000}")
+    public void flush() {
+        String today = LocalDate.now(zone).format(DAY);
+        Map<String, Sketch> dirty = new LinkedHashMap<>();
+        sketches.forEach((key, sketch) -> {
+            if (sketch.takeDirty()) {
+                dirty.put(key, sketch);
+            } else if (!sketch.day.equals(today)) {
+                // Fully merged and no longer written to
+                sketches.remove(key, sketch);
+            }
+        });
+        if (dirty.isEmpty()) {
+            return;
+        }
+        try {
+            long expireSeconds = RETENTION.toSeconds();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                dirty.forEach((key, sketch) -> {
+                    byte[] target = key.getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().set(mergeSourceKey, sketch.registers.toRedisDense());
+                    connection.hyperLogLogCommands().pfMerge(target, target, mergeSourceKey);
+                    connection.keyCommands().expire(target, expireSeconds);
+                });
+                connection.keyCommands().del(mergeSourceKey);
+                return null;
+            });
+            logger.debug("[ActiveUsers] Merged {} sketches", dirty.size());
+        } catch (Exception e) {
+            dirty.values().forEach(Sketch::markDirty);
+            logger.warn("[ActiveUsers] Flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns DAU, WAU and MAU overall, and DAU per configured route, counted up to the last flush.
+     */
+    public Map<String, Object> activeUsers() {
+        LocalDate today = LocalDate.now(zone);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("date", today.toString());
+        result.put("dau", count(DAILY_PREFIX, today, 1));
+        result.put("wau", count(DAILY_PREFIX, today, 7));
+        result.put("mau", count(DAILY_PREFIX, today, 30));
+
+        Map<String, Long> routes = new LinkedHashMap<>();
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            routes.put(route.getId(), count(ROUTE_PREFIX + route.getId() + ":", today, 1));
+        }
+        result.put("routeDau", routes);
+        return result;
+    }
+
+    private long count(String prefix, LocalDate today, int days) {
+        List<String> keys = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            keys.add(prefix + today.minusDays(i).format(DAY));
+        }
+        Long count = redisTemplate.opsForHyperLogLog().size(keys.toArray(String[]::new));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * One day's local registers for one Redis sketch. {@code dirty} is raised after the registers, and cleared
+     * before they are read for a merge, so an element added during a flush is merged by that flush or the next.
+     */
+    private static final class Sketch {
+        private final String day;
+        private final HyperLogLogRegisters registers = new HyperLogLogRegisters();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        private Sketch(String day) {
+            this.day = day;
+        }
+
+        private void add(String member) {
+            if (registers.add(member)) {
+                dirty.set(true);
+            }
+        }
+
+        private boolean takeDirty() {
+            return dirty.getAndSet(false);
+        }
+
+        private void markDirty() {
+            dirty.set(true);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.dietdiary.gateway.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds the users, client IPs and routes generating the most requests, in memory and per instance.
+ * Counts halve every {@code app.heavy-hitters.decay-interval-ms}, so the ranking reflects recent traffic
+ * rather than totals since startup. Read through the {@code heavyhitters} actuator endpoint.
+ */
+@Service
+public class HeavyHitterTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeavyHitterTracker.class);
+
+    private final Map<String, TopKSketch> sketches = new LinkedHashMap<>();
+
+    public HeavyHitterTracker(@Value("${app.heavy-hitters.depth:4}") int depth,
+                              @Value("${app.heavy-hitters.width:2048}") int width,
+                              @Value("${app.heavy-hitters.top-k:20}") int topK) {
+        int stripes = Runtime.getRuntime().availableProcessors();
+        for (String dimension : new String[]{"users", "ips", "routes"}) {
+            sketches.put(dimension, new TopKSketch(depth, width, stripes, topK));
+        }
+    }
+
+    public void recordUser(Long userId) {
+        if (userId != null) {
+            sketches.get("users").add(String.valueOf(userId));
+        }
+    }
+
+    public void recordRequest(String clientIp, String routeId) {
+        if (clientIp != null) {
+            sketches.get("ips").add(clientIp);
+        }
+        if (routeId != null) {
+            sketches.get("routes").add(routeId);
+        }
+    }
+
+    /**
+     * Returns the current top keys per dimension ({@code users}, {@code ips}, {@code routes}).
+     */
+    public Map<String, Map<String, Long>> topAll() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        sketches.forEach((dimension, sketch) -> result.put(dimension, sketch.top()));
+        return result;
+    }
+
+    /**
+     * Returns the current top keys of one dimension, or null if the dimension is unknown.
+     */
+    public Map<String, Long> top(String dimension) {
+        TopKSketch sketch = sketches.get(dimension);
+        return sketch != null ? sketch.top() : null;
+    }
+
+    @Scheduled(fixedDelayString = "${app.heavy-hitters.decay-interval-ms:60000}")
+    public void decay() {
+        sketches.values().forEach(TopKSketch::decay);
+        logger.debug("[HeavyHitters] Counters decayed");
+    }
+}
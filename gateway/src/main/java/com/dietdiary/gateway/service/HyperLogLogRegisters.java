@@ -0,0 +1,104 @@
+package com.dietdiary.gateway.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-process HyperLogLog registers that produce the same sketch Redis builds with {@code PFADD}.
+ * <p>
+ * Elements are hashed with Redis's MurmurHash64A and seed, into the same 16384 registers, and
+ * {@link #toRedisDense()} writes them in Redis's dense encoding, so the result can be stored under a temporary
+ * key and {@code PFMERGE}d into a live sketch. The registers are packed four to an int and raised with CAS,
+ * so {@link #add} never blocks and the memory is a constant 16 KB whatever the number of distinct elements.
+ * Adding is idempotent: merging the same registers twice changes nothing.
+ */
+class HyperLogLogRegisters {
+
+    private static final int P = 14;
+    private static final int REGISTERS = 1 << P;
+    private static final int Q = 64 - P;
+    private static final int REGISTER_BITS = 6;
+    private static final int HEADER_SIZE = 16;
+    private static final long SEED = 0xadc83b19L;
+    private static final long M = 0xc6a4a7935bd1e995L;
+    private static final int R = 47;
+
+    private final AtomicIntegerArray registers = new AtomicIntegerArray(REGISTERS / 4);
+
+    /**
+     * @return true if a register was raised.
+     */
+    boolean add(String element) {
+        long hash = murmurHash64A(element.getBytes(StandardCharsets.UTF_8));
+        int index = (int) (hash & (REGISTERS - 1));
+        int rank = Long.numberOfTrailingZeros((hash >>> P) | (1L << Q)) + 1;
+
+        int slot = index >> 2;
+        int shift = (index & 3) * 8;
+        while (true) {
+            int packed = registers.get(slot);
+            if (((packed >>> shift) & 0xff) >= rank) {
+                return false;
+            }
+            int updated = (packed & ~(0xff << shift)) | (rank << shift);
+            if (registers.compareAndSet(slot, packed, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return The registers as a Redis dense HyperLogLog string value, with the cached cardinality marked stale.
+     */
+    byte[] toRedisDense() {
+        byte[] out = new byte[HEADER_SIZE + REGISTERS * REGISTER_BITS / 8];
+        out[0] = 'H';
+        out[1] = 'Y';
+        out[2] = 'L';
+        out[3] = 'L';
+        // out[4] = 0: dense encoding; the top bit of the last cardinality byte invalidates the cache
+        out[15] = (byte) 0x80;
+        for (int index = 0; index < REGISTERS; index++) {
+            int value = (registers.get(index >> 2) >>> ((index & 3) * 8)) & 0xff;
+            if (value == 0) {
+                continue;
+            }
+            int bit = index * REGISTER_BITS;
+            int pos = HEADER_SIZE + bit / 8;
+            int offset = bit & 7;
+            out[pos] |= (byte) (value << offset);
+            if (offset > 8 - REGISTER_BITS) {
+                out[pos + 1] |= (byte) (value >>> (8 - offset));
+            }
+        }
+        return out;
+    }
+
+    private static long murmurHash64A(byte[] data) {
+        int length = data.length;
+        long h = SEED ^ (length * M);
+        int end = length - (length & 7);
+        for (int i = 0; i < end; i += 8) {
+            long k = 0;
+            for (int b = 7; b >= 0; b--) {
+                k = (k << 8) | (data[i + b] & 0xffL);
+            }
+            k *= M;
+            k ^= k >>> R;
+            k *= M;
+            h ^= k;
+            h *= M;
+        }
+        int tail = length & 7;
+        if (tail > 0) {
+            for (int b = tail - 1; b >= 0; b--) {
+                h ^= (data[end + b] & 0xffL) << (8 * b);
+            }
+            h *= M;
+        }
+        h ^= h >>> R;
+        h *= M;
+        h ^= h >>> R;
+        return h;
+    }
+}
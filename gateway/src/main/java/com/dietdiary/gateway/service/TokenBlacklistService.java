@@ -2,22 +2,33 @@ package com.dietdiary.gateway.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Date;
 
+/**
+ * Read side of the revocation data written by auth-service.
+ * User-wide invalidations are epoch seconds in {@code jwt:user_epoch:<window>} hashes, where a window is one
+ * access-token lifetime; {@code jwt.access-token-expiration} must match auth-service.
+ * Reads go through {@code replicaRedisTemplate}.
+ */
 @Service
 public class TokenBlacklistService {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
     private static final String BLACKLIST_PREFIX = "jwt:blacklist:";
-    private static final String USER_INVALIDATE_PREFIX = "jwt:user_invalidate:";
+    private static final String USER_EPOCH_PREFIX = "jwt:user_epoch:";
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final long accessTokenLifetimeMs;
 
-    public TokenBlacklistService(RedisTemplate<String, String> redisTemplate) {
+    public TokenBlacklistService(@Qualifier("replicaRedisTemplate") RedisTemplate<String, String> redisTemplate,
+                                 @Value("${jwt.access-token-expiration}") long accessTokenLifetimeMs) {
         this.redisTemplate = redisTemplate;
+        this.accessTokenLifetimeMs = accessTokenLifetimeMs;
     }
 
     public boolean isTokenBlacklisted(String jwtId) {
@@ -29,39 +40,20 @@ public class TokenBlacklistService {
     public boolean isUserTokenInvalidated(Long userId, Date tokenIssuedAt) {
         if (userId == null || tokenIssuedAt == null) return false;
 
-        String userKey = USER_INVALIDATE_PREFIX + userId;
-        String invalidateData = redisTemplate.opsForValue().get(userKey);
-
-        if (invalidateData == null) return false;
+        String key = USER_EPOCH_PREFIX + (System.currentTimeMillis() / accessTokenLifetimeMs);
+        Object epoch = redisTemplate.opsForHash().get(key, String.valueOf(userId));
+        if (epoch == null) return false;
 
         try {
-            long invalidateTimestamp;
-            if (invalidateData.startsWith("{")) {
-                String timestampStr = extractTimestampFromJson(invalidateData);
-                invalidateTimestamp = Long.parseLong(timestampStr);
-            } else {
-                invalidateTimestamp = Long.parseLong(invalidateData);
-            }
-            boolean isInvalidated = tokenIssuedAt.getTime() < invalidateTimestamp;
+            long invalidatedAt = Long.parseLong((String) epoch);
+            boolean isInvalidated = tokenIssuedAt.getTime() / 1000 < invalidatedAt;
             if (isInvalidated) {
-                logger.warn("[Gateway] Token for user {} issued at {} is invalidated by timestamp {}", userId, tokenIssuedAt, invalidateTimestamp);
+                logger.warn("[Gateway] Token for user {} issued at {} is invalidated by epoch {}", userId, tokenIssuedAt, invalidatedAt);
             }
             return isInvalidated;
-        } catch (Exception e) {
-            logger.warn("[Gateway] Invalid data format for user: {} - {}", userId, e.getMessage());
+        } catch (NumberFormatException e) {
+            logger.warn("[Gateway] Invalid epoch for user: {} - {}", userId, epoch);
             return false;
         }
     }
-
-    private String extractTimestampFromJson(String json) {
-        String timestampPrefix = "\"timestamp\":";
-        int start = json.indexOf(timestampPrefix);
-        if (start == -1) throw new IllegalArgumentException("timestamp not found in JSON");
-
-        start += timestampPrefix.length();
-        int end = json.indexOf(",", start);
-        if (end == -1) end = json.indexOf("}", start);
-
-        return json.substring(start, end).trim();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package com.dietdiary.gateway.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate top-k counter: a Count-Min Sketch for frequencies plus a bounded candidate map for the keys.
+ * <p>
+ * The sketch is split into stripes picked by the calling thread, so event-loop threads rarely CAS the same cell;
+ * a key's estimate is the sum over stripes of the per-stripe minimum, which still never under-counts.
+ * Candidates are admitted when their estimate beats the weakest retained entry, and the map is trimmed back
+ * to {@code k} by whichever thread wins a flag, so {@link #add} never blocks.
+ * {@link #decay()} halves every counter, which turns the counts into an exponentially decaying rate.
+ */
+class TopKSketch {
+
+    private final int depth;
+    private final int width;
+    private final int stripeMask;
+    private final AtomicLongArray[] stripes;
+    private final int k;
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private volatile long admissionThreshold;
+
+    TopKSketch(int depth, int width, int stripes, int k) {
+        this.depth = depth;
+        this.width = width;
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes));
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new AtomicLongArray(depth * width);
+        }
+        this.k = k;
+    }
+
+    void add(String key) {
+        long hash = mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        AtomicLongArray cells = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        for (int row = 0; row < depth; row++) {
+            cells.incrementAndGet(row * width + Math.floorMod(h1 + row * h2, width));
+        }
+
+        long estimate = estimate(h1, h2);
+        if (estimate > admissionThreshold || candidates.size() < k) {
+            candidates.put(key, estimate);
+            if (candidates.size() > 2 * k) {
+                trim();
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code k} keys with their estimated counts, highest first.
+     */
+    Map<String, Long> top() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (String key : candidates.keySet()) {
+            long hash = mix(key.hashCode());
+            entries.add(Map.entry(key, estimate((int) hash, (int) (hash >>> 32) | 1)));
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(k, entries.size()))) {
+            if (entry.getValue() > 0) {
+                top.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return top;
+    }
+
+    void decay() {
+        for (AtomicLongArray cells : stripes) {
+            for (int i = 0; i < cells.length(); i++) {
+                if (cells.get(i) != 0) {
+                    cells.getAndUpdate(i, value -> value >> 1);
+                }
+            }
+        }
+        candidates.replaceAll((key, value) -> value >> 1);
+        candidates.values().removeIf(value -> value == 0);
+        admissionThreshold >>= 1;
+    }
+
+    private long estimate(int h1, int h2) {
+        long total = 0;
+        for (AtomicLongArray cells : stripes) {
+            long min = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                min = Math.min(min, cells.get(row * width + Math.floorMod(h1 + row * h2, width)));
+            }
+            total += min;
+        }
+        return total;
+    }
+
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(candidates.entrySet());
+            if (entries.size() <= k) {
+                return;
+            }
+            entries.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+            admissionThreshold = entries.get(k - 1).getValue();
+            for (Map.Entry<String, Long> entry : entries.subList(k, entries.size())) {
+                candidates.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * Murmur3 fmix64 finaliser; spreads {@link String#hashCode()} over 64 bits for the double hashing above.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -44,6 +44,15 @@ public class JwtUtil {
         }
     }
 
+    public String getRoleFromToken(String token) {
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            return signedJWT.getJWTClaimsSet().getStringClaim("role");
+        } catch (ParseException e) {
+            throw new RuntimeException("Invalid JWT token", e);
+        }
+    }
+
     public boolean validateToken(String token) {
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
@@ -0,0 +1,6 @@
+-- Extensions need a superuser (or a role allowed to create them), so they are not created by the services.
+-- Runs once when the postgres container initialises an empty data directory. For an existing database,
+-- run it once by hand as a superuser:  psql -U postgres -d diet_diary -f postgres/init/01-extensions.sql
+
+-- Trigram indexes for the admin user search (auth-service schema.sql)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,46 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.dto.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialisation of a login-shaped {@link ApiResponse}, as written by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ApiResponseBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Map<String, Object> loginData;
+
+    @Setup
+    public void setUp() throws Exception {
+        Map<String, Object> user = new HashMap<>();
+        user.put("id", 42L);
+        user.put("email", "bench@example.com");
+        user.put("name", "벤치마크");
+        user.put("role", "USER");
+
+        loginData = new HashMap<>();
+        loginData.put("accessToken", BenchmarkFixtures.jwtUtil().generateAccessToken(BenchmarkFixtures.user()));
+        loginData.put("user", user);
+    }
+
+    @Benchmark
+    public String serializeLoginResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(ApiResponse.success("로그인 성공", loginData));
+    }
+}
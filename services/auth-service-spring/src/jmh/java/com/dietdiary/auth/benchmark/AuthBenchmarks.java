@@ -0,0 +1,31 @@
+package com.dietdiary.auth.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the auth-service benchmarks at 1, 4 and 8 threads with the GC profiler (allocation rate per op).
+ * Standard JMH command-line options are honoured, e.g. a benchmark regex or {@code -f}/{@code -wi}/{@code -i}.
+ */
+public class AuthBenchmarks {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 8};
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(threads)
+                    .forks(commandLine.getForkCount().orElse(1))
+                    .warmupIterations(commandLine.getWarmupIterations().orElse(3))
+                    .measurementIterations(commandLine.getMeasurementIterations().orElse(5))
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
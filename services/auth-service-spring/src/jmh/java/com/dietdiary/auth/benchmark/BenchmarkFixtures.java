@@ -0,0 +1,67 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.entity.User;
+import com.dietdiary.auth.entity.UserRole;
+import com.dietdiary.auth.security.JwtUtil;
+import com.dietdiary.auth.service.TokenBlacklistService;
+import com.dietdiary.auth.util.CookieUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+/**
+ * Builds the beans under test without a Spring context or Redis.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+    static final long ACCESS_TOKEN_EXPIRATION = 900000L;
+    static final long REFRESH_TOKEN_EXPIRATION = 604800000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtil jwtUtil() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", ACCESS_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpiration", REFRESH_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(jwtUtil, "tokenBlacklistService", new NoRevocations());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    static CookieUtil cookieUtil() {
+        CookieUtil cookieUtil = new CookieUtil();
+        ReflectionTestUtils.setField(cookieUtil, "refreshTokenExpiration", REFRESH_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(cookieUtil, "cookieSalt", "benchmark-salt");
+        return cookieUtil;
+    }
+
+    static User user() {
+        User user = new User("bench@example.com", "unused", "벤치마크");
+        user.setId(42L);
+        user.setRole(UserRole.USER);
+        return user;
+    }
+
+    /**
+     * Revocation lookups answer "not revoked" without Redis, so validation measures parsing and HMAC only.
+     */
+    private static final class NoRevocations extends TokenBlacklistService {
+
+        NoRevocations() {
+            super(null, null, null, null, null, ACCESS_TOKEN_EXPIRATION);
+        }
+
+        @Override
+        public boolean isTokenBlacklisted(String jwtId) {
+            return false;
+        }
+
+        @Override
+        public boolean isUserTokenInvalidated(Long userId, Date tokenIssuedAt) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.util.CookieUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.ResponseCookie;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh-token hashing (salted SHA-256) and cookie creation on login, and the hash comparison on refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CookieBenchmark {
+
+    private CookieUtil cookieUtil;
+    private String refreshToken;
+    private String sessionId;
+
+    @Setup
+    public void setUp() throws Exception {
+        cookieUtil = BenchmarkFixtures.cookieUtil();
+        refreshToken = BenchmarkFixtures.jwtUtil().generateRefreshToken(BenchmarkFixtures.user());
+        sessionId = "0." + DigestUtils.sha256Hex(refreshToken + "benchmark-salt");
+    }
+
+    @Benchmark
+    public ResponseCookie createRefreshTokenCookie() {
+        return cookieUtil.createRefreshTokenCookie("0." + DigestUtils.sha256Hex(refreshToken + "benchmark-salt"));
+    }
+
+    @Benchmark
+    public boolean validateRefreshToken() {
+        return cookieUtil.validateRefreshToken(refreshToken, sessionId);
+    }
+}
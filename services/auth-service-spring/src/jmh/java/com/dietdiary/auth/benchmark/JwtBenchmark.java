@@ -0,0 +1,48 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.entity.User;
+import com.dietdiary.auth.security.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access-token issuance (login/refresh) and validation (every protected call).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String accessToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        user = BenchmarkFixtures.user();
+        accessToken = jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(accessToken);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.security.JwtIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jti generation: the previous {@code UUID.randomUUID()} (shared SecureRandom) against {@link JwtIdGenerator}.
+ * The gap grows with the thread count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtIdBenchmark {
+
+    @Benchmark
+    public String secureRandomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String threadLocalRandomUuid() {
+        return JwtIdGenerator.next();
+    }
+}
@@ -0,0 +1,110 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.dto.RegisterRequest;
+import com.dietdiary.auth.dto.UserResponse;
+import com.dietdiary.auth.repository.UserRepository;
+import com.dietdiary.auth.service.AuthService;
+import com.dietdiary.auth.service.RegisteredEmailFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registration throughput during a signup spike: fresh emails (BCrypt plus one insert) and retried
+ * duplicates (rejected before BCrypt). The users table is an in-memory map whose statements each wait
+ * {@code dbLatencyMicros} to stand in for a database round trip. With {@code emailFilter=false} the filter
+ * is never warmed, so every registration pays the existence query as it did before the filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RegistrationBenchmark {
+
+    private static final int EXISTING_USERS = 100_000;
+
+    @Param({"true", "false"})
+    public boolean emailFilter;
+
+    @Param({"0", "500"})
+    public long dbLatencyMicros;
+
+    private final Map<String, Long> users = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong nextEmail = new AtomicLong();
+    private AuthService authService;
+
+    @Setup
+    public void setUp() {
+        UserRepository repository = usersTable();
+        RegisteredEmailFilter filter = new RegisteredEmailFilter(repository, 1_000_000, 0.01);
+        for (int i = 0; i < EXISTING_USERS; i++) {
+            String email = existingEmail(i);
+            users.put(email, nextId.incrementAndGet());
+            filter.put(email);
+        }
+        ReflectionTestUtils.setField(filter, "ready", emailFilter);
+
+        authService = new AuthService(repository, new BCryptPasswordEncoder(), null, null, null, null, null, null,
+                null, filter, null, null);
+    }
+
+    @Benchmark
+    public UserResponse registerNewEmail() {
+        return authService.register(request("spike" + nextEmail.incrementAndGet() + "@example.com"));
+    }
+
+    @Benchmark
+    public Object registerDuplicate() {
+        try {
+            return authService.register(request(existingEmail(ThreadLocalRandom.current().nextInt(EXISTING_USERS))));
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private UserRepository usersTable() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "existsByEmail" -> {
+                        roundTrip();
+                        yield users.containsKey((String) args[0]);
+                    }
+                    case "insertIfAbsent" -> {
+                        roundTrip();
+                        long id = nextId.incrementAndGet();
+                        yield users.putIfAbsent((String) args[0], id) == null ? Optional.of(id) : Optional.empty();
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private void roundTrip() {
+        if (dbLatencyMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbLatencyMicros));
+        }
+    }
+
+    private static RegisterRequest request(String email) {
+        return new RegisterRequest(email, "benchmark-password", "벤치마크");
+    }
+
+    private static String existingEmail(int index) {
+        return "user" + index + "@example.com";
+    }
+}
@@ -0,0 +1,183 @@
+package com.dietdiary.auth.benchmark;
+
+import com.dietdiary.auth.entity.User;
+import com.dietdiary.auth.entity.UserRole;
+import com.dietdiary.auth.repository.UserRepository;
+import com.dietdiary.auth.security.JwtUtil;
+import com.dietdiary.auth.service.LiveStatsService;
+import com.dietdiary.auth.service.RefreshTokenService;
+import com.dietdiary.auth.service.UserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Measures Redis memory per refresh session for the old three-key JSON layout and the current compact layout.
+ * <p>
+ * Each layout writes {@code -n} sessions into an empty database of a real Redis and reports the growth of
+ * {@code used_memory} divided by the session count, so per-key overhead (dict entries, TTLs, index members)
+ * is included. The compact layout is written through {@link RefreshTokenService#createRefreshToken}.
+ * <pre>
+ *   mvn -Pjmh test-compile exec:exec -Djmh.main=com.dietdiary.auth.benchmark.SessionFootprint \
+ *       -Djmh.args="-n 10000 -host localhost -port 6379 -db 15"
+ * </pre>
+ * The database is flushed between layouts, so the tool refuses to run unless it starts out empty.
+ */
+public class SessionFootprint {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int sessions = Integer.parseInt(options.getOrDefault("n", "10000"));
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(
+                options.getOrDefault("host", "localhost"), Integer.parseInt(options.getOrDefault("port", "6379")));
+        config.setDatabase(Integer.parseInt(options.getOrDefault("db", "15")));
+        if (options.containsKey("password")) {
+            config.setPassword(options.get("password"));
+        }
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(config);
+        connectionFactory.afterPropertiesSet();
+        try {
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            Long existing = redisTemplate.execute(connection -> connection.serverCommands().dbSize(), true);
+            if (existing != null && existing > 0) {
+                throw new IllegalStateException("Database " + config.getDatabase() + " holds " + existing
+                        + " keys; point -db at an empty database");
+            }
+
+            long legacy = measure(redisTemplate, () -> writeLegacy(connectionFactory, sessions), sessions);
+            long compact = measure(redisTemplate, () -> writeCompact(connectionFactory, redisTemplate, sessions), sessions);
+            System.out.printf("sessions: %d%n", sessions);
+            System.out.printf("legacy  (refresh_token/user_refresh/hash_to_token JSON): %6d bytes/session%n", legacy);
+            System.out.printf("compact (session hash + user pointer + expiry index):   %6d bytes/session%n", compact);
+            System.out.printf("reduction: %.1fx%n", (double) legacy / compact);
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static long measure(StringRedisTemplate redisTemplate, ThrowingRunnable write, int sessions) throws Exception {
+        long before = usedMemory(redisTemplate);
+        write.run();
+        long after = usedMemory(redisTemplate);
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        }, true);
+        return (after - before) / sessions;
+    }
+
+    /**
+     * Writes sessions exactly as the pre-compact RefreshTokenService did.
+     */
+    private static void writeLegacy(LettuceConnectionFactory connectionFactory, int sessions) throws Exception {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.afterPropertiesSet();
+
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        Duration expiration = Duration.ofMillis(BenchmarkFixtures.REFRESH_TOKEN_EXPIRATION);
+        for (int i = 0; i < sessions; i++) {
+            User user = user(i);
+            String refreshToken = jwtUtil.generateRefreshToken(user);
+            Map<String, Object> tokenData = new HashMap<>();
+            tokenData.put("userId", user.getId());
+            tokenData.put("email", user.getEmail());
+            tokenData.put("name", user.getName());
+            tokenData.put("issuedAt", Instant.now().toString());
+            tokenData.put("expiryDate", Instant.now().plus(expiration).toString());
+
+            template.opsForValue().set("refresh_token:" + refreshToken, tokenData, expiration);
+            template.opsForValue().set("user_refresh:" + user.getId(), refreshToken, expiration);
+            template.opsForValue().set("hash_to_token:" + DigestUtils.sha256Hex(refreshToken + "benchmark-salt"),
+                    refreshToken, expiration);
+        }
+    }
+
+    private static void writeCompact(LettuceConnectionFactory connectionFactory, StringRedisTemplate redisTemplate,
+                                     int sessions) throws Exception {
+        RedisTemplate<String, Object> legacyTemplate = new RedisTemplate<>();
+        legacyTemplate.setConnectionFactory(connectionFactory);
+        legacyTemplate.setKeySerializer(new StringRedisSerializer());
+        legacyTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        legacyTemplate.afterPropertiesSet();
+
+        // The legacy store is package-private; the service only needs it for its (no-op here) cleanup reads.
+        Object legacyStore = BeanUtils.instantiateClass(
+                Class.forName("com.dietdiary.auth.service.LegacyRefreshTokenStore").getDeclaredConstructor(RedisTemplate.class),
+                legacyTemplate);
+        RefreshTokenService service = BeanUtils.instantiateClass(
+                RefreshTokenService.class.getDeclaredConstructor(StringRedisTemplate.class, RedisTemplate.class,
+                        legacyStore.getClass(), UserCache.class, JwtUtil.class, LiveStatsService.class),
+                redisTemplate, redisTemplate, legacyStore, new FixedUsers(), BenchmarkFixtures.jwtUtil(),
+                new LiveStatsService(redisTemplate, null, null));
+        ReflectionTestUtils.setField(service, "refreshTokenExpiration", BenchmarkFixtures.REFRESH_TOKEN_EXPIRATION);
+        ReflectionTestUtils.setField(service, "cookieSalt", "benchmark-salt");
+
+        for (int i = 0; i < sessions; i++) {
+            service.createRefreshToken(email(i));
+        }
+    }
+
+    private static long usedMemory(StringRedisTemplate redisTemplate) {
+        Properties info = redisTemplate.execute(connection -> connection.serverCommands().info("memory"), true);
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    private static User user(int index) {
+        User user = new User(email(index), "unused", "벤치마크" + index);
+        user.setId(100_000L + index);
+        user.setRole(UserRole.USER);
+        return user;
+    }
+
+    private static String email(int index) {
+        return "bench" + index + "@example.com";
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^-+", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    /**
+     * Resolves the synthetic users without a database.
+     */
+    private static final class FixedUsers extends UserCache {
+
+        FixedUsers() {
+            super((UserRepository) null, null, new RedisMessageListenerContainer(), new SimpleMeterRegistry(),
+                    1, Duration.ofMinutes(1));
+        }
+
+        @Override
+        public Optional<User> findByEmail(String email) {
+            int index = Integer.parseInt(email.substring("bench".length(), email.indexOf('@')));
+            return Optional.of(user(index));
+        }
+    }
+}
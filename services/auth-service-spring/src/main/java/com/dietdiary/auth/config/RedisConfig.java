@@ -1,32 +1,72 @@
 package com.dietdiary.auth.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Builds the Redis connections from {@code spring.data.redis.*}.
+ * The topology is Cluster when {@code cluster.nodes} is set, Sentinel when {@code sentinel.master} is set,
+ * and standalone otherwise. Password, timeouts and the Lettuce pool settings apply to all three.
+ * <p>
+ * Two connection factories are exposed: the primary one for writes and anything that must read its own writes,
+ * and {@code replicaRedisConnectionFactory}, which reads according to {@code app.redis.read-from}
+ * (replica preferred by default) and backs {@code replicaRedisTemplate}.
+ */
 @Configuration
 public class RedisConfig {
 
-    @Value("${spring.data.redis.host}")
-    private String redisHost;
+    private final RedisProperties properties;
+
+    @Value("${app.redis.read-from:replicaPreferred}")
+    private String readFrom;
 
-    @Value("${spring.data.redis.port}")
-    private int redisPort;
+    public RedisConfig(RedisProperties properties) {
+        this.properties = properties;
+    }
 
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        return new LettuceConnectionFactory(redisHost, redisPort);
+    @Primary
+    public LettuceConnectionFactory redisConnectionFactory() {
+        return new LettuceConnectionFactory(topology(), clientConfiguration(null));
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate() {
+    public LettuceConnectionFactory replicaRedisConnectionFactory() {
+        return new LettuceConnectionFactory(topology(), clientConfiguration(ReadFrom.valueOf(readFrom)));
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
-        template.setConnectionFactory(redisConnectionFactory());
+        template.setConnectionFactory(connectionFactory);
         
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
@@ -38,4 +78,113 @@ public class RedisConfig {
         
         return template;
     }
+
+    /**
+     * String template for reads that tolerate replication lag (revocation checks, session listings).
+     */
+    @Bean
+    public RedisTemplate<String, String> replicaRedisTemplate(
+            @Qualifier("replicaRedisConnectionFactory") RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, String> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        template.setKeySerializer(stringSerializer);
+        template.setValueSerializer(stringSerializer);
+        template.setHashKeySerializer(stringSerializer);
+        template.setHashValueSerializer(stringSerializer);
+
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    private RedisConfiguration topology() {
+        RedisPassword password = RedisPassword.of(properties.getPassword());
+        List<String> clusterNodes = clusterNodes();
+        if (!clusterNodes.isEmpty()) {
+            RedisClusterConfiguration config = new RedisClusterConfiguration(clusterNodes);
+            if (properties.getCluster().getMaxRedirects() != null) {
+                config.setMaxRedirects(properties.getCluster().getMaxRedirects());
+            }
+            config.setUsername(properties.getUsername());
+            config.setPassword(password);
+            return config;
+        }
+
+        RedisProperties.Sentinel sentinel = properties.getSentinel();
+        if (sentinel != null && StringUtils.hasText(sentinel.getMaster())) {
+            RedisSentinelConfiguration config = new RedisSentinelConfiguration(sentinel.getMaster(),
+                    new HashSet<>(nodes(sentinel.getNodes())));
+            config.setSentinelUsername(sentinel.getUsername());
+            config.setSentinelPassword(RedisPassword.of(sentinel.getPassword()));
+            config.setUsername(properties.getUsername());
+            config.setPassword(password);
+            config.setDatabase(properties.getDatabase());
+            return config;
+        }
+
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(properties.getHost(), properties.getPort());
+        config.setUsername(properties.getUsername());
+        config.setPassword(password);
+        config.setDatabase(properties.getDatabase());
+        return config;
+    }
+
+    private LettuceClientConfiguration clientConfiguration(ReadFrom readFrom) {
+        RedisProperties.Pool pool = properties.getLettuce().getPool();
+        GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(pool.getMaxActive());
+        poolConfig.setMaxIdle(pool.getMaxIdle());
+        poolConfig.setMinIdle(pool.getMinIdle());
+        if (pool.getMaxWait() != null) {
+            poolConfig.setMaxWait(pool.getMaxWait());
+        }
+        if (pool.getTimeBetweenEvictionRuns() != null) {
+            poolConfig.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns());
+        }
+
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder builder =
+                LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        if (properties.getTimeout() != null) {
+            builder.commandTimeout(properties.getTimeout());
+        }
+        if (readFrom != null) {
+            builder.readFrom(readFrom);
+        }
+
+        SocketOptions socketOptions = properties.getConnectTimeout() != null
+                ? SocketOptions.builder().connectTimeout(properties.getConnectTimeout()).build()
+                : SocketOptions.create();
+        if (!clusterNodes().isEmpty()) {
+            // Follow slot migrations and failovers without a restart.
+            builder.clientOptions(ClusterClientOptions.builder()
+                    .socketOptions(socketOptions)
+                    .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                            .enableAllAdaptiveRefreshTriggers()
+                            .enablePeriodicRefresh(Duration.ofMinutes(1))
+                            .build())
+                    .build());
+        } else {
+            builder.clientOptions(ClientOptions.builder().socketOptions(socketOptions).build());
+        }
+        return builder.build();
+    }
+
+    private List<String> clusterNodes() {
+        return nodes(properties.getCluster() != null ? properties.getCluster().getNodes() : null);
+    }
+
+    private static List<String> nodes(List<String> configured) {
+        if (configured == null) {
+            return List.of();
+        }
+        return configured.stream().filter(StringUtils::hasText).map(String::trim).toList();
+    }
 }
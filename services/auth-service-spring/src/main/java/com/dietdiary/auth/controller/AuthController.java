@@ -2,29 +2,42 @@ package com.dietdiary.auth.controller;
 
 import com.dietdiary.auth.dto.*;
 import com.dietdiary.auth.entity.User;
-import com.dietdiary.auth.repository.UserRepository;
+import com.dietdiary.auth.entity.UserRole;
 import com.dietdiary.auth.security.JwtUtil;
 import com.dietdiary.auth.service.AuthService;
+import com.dietdiary.auth.service.BulkForceLogoutService;
+import com.dietdiary.auth.service.ForceLogoutAuditService;
+import com.dietdiary.auth.service.LiveStatsService;
 import com.dietdiary.auth.service.RefreshTokenService;
+import com.dietdiary.auth.service.SessionKeyReconciler;
 import com.dietdiary.auth.service.TokenBlacklistService;
+import com.dietdiary.auth.service.UserCache;
 import com.dietdiary.auth.util.CookieUtil;
+import com.dietdiary.auth.websocket.service.WebSocketSessionManager;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.socket.CloseStatus;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/")
@@ -36,18 +49,34 @@ public class AuthController {
     private final RefreshTokenService refreshTokenService;
     private final CookieUtil cookieUtil;
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserCache userCache;
     private final TokenBlacklistService tokenBlacklistService;
+    private final ForceLogoutAuditService forceLogoutAuditService;
+    private final LiveStatsService liveStatsService;
+    private final BulkForceLogoutService bulkForceLogoutService;
+    private final SessionKeyReconciler sessionKeyReconciler;
+    private final WebSocketSessionManager sessionManager;
+    private final ObjectMapper objectMapper;
 
     public AuthController(AuthService authService, RefreshTokenService refreshTokenService,
-                         CookieUtil cookieUtil, JwtUtil jwtUtil, UserRepository userRepository,
-                         TokenBlacklistService tokenBlacklistService) {
+                         CookieUtil cookieUtil, JwtUtil jwtUtil, UserCache userCache,
+                         TokenBlacklistService tokenBlacklistService,
+                         ForceLogoutAuditService forceLogoutAuditService,
+                         LiveStatsService liveStatsService, BulkForceLogoutService bulkForceLogoutService,
+                         SessionKeyReconciler sessionKeyReconciler, WebSocketSessionManager sessionManager,
+                         ObjectMapper objectMapper) {
         this.authService = authService;
         this.refreshTokenService = refreshTokenService;
         this.cookieUtil = cookieUtil;
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.userCache = userCache;
         this.tokenBlacklistService = tokenBlacklistService;
+        this.forceLogoutAuditService = forceLogoutAuditService;
+        this.liveStatsService = liveStatsService;
+        this.bulkForceLogoutService = bulkForceLogoutService;
+        this.sessionKeyReconciler = sessionKeyReconciler;
+        this.sessionManager = sessionManager;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/register")
@@ -102,11 +131,11 @@ public class AuthController {
             // AuthService에 추가 정보 전달
             Map<String, Object> authResponse = authService.login(request, ipAddress, userAgent);
             String accessToken = (String) authResponse.get("accessToken");
-            String refreshToken = (String) authResponse.get("refreshToken");
+            String refreshSessionId = (String) authResponse.get("refreshSessionId");
             UserResponse userResponse = (UserResponse) authResponse.get("user");
 
             HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.SET_COOKIE, cookieUtil.createRefreshTokenCookie(refreshToken).toString());
+            headers.add(HttpHeaders.SET_COOKIE, cookieUtil.createRefreshTokenCookie(refreshSessionId).toString());
 
             LoginResponse loginResponse = new LoginResponse(accessToken, userResponse);
 
@@ -148,7 +177,7 @@ public class AuthController {
             logger.info("[auth-service] Refresh token verified successfully");
 
             Long userId = ((Number) validTokenData.get("userId")).longValue();
-            User user = userRepository.findById(userId)
+            User user = userCache.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             logger.info("[auth-service] Generating new access token for user: {}", user.getEmail());
@@ -157,7 +186,13 @@ public class AuthController {
             response.put("accessToken", newAccessToken);
             logger.info("[auth-service] Successfully refreshed access token");
 
-            return ResponseEntity.ok(ApiResponse.success("Access token refreshed", response));
+            // Sessions moved out of an older key layout get a new cookie value
+            HttpHeaders headers = new HttpHeaders();
+            String sessionId = (String) validTokenData.get("sessionId");
+            if (!hashedTokenFromCookie.equals(sessionId)) {
+                headers.add(HttpHeaders.SET_COOKIE, cookieUtil.createRefreshTokenCookie(sessionId).toString());
+            }
+            return ResponseEntity.ok().headers(headers).body(ApiResponse.success("Access token refreshed", response));
         } catch (RuntimeException e) {
             logger.error("[auth-service] Refresh token verification failed: {}", e.getMessage());
             return ResponseEntity.status(401).body(ApiResponse.error("토큰 갱신에 실패했습니다."));
@@ -187,18 +222,49 @@ public class AuthController {
     }
 
     @GetMapping("/admin/users")
-    public ResponseEntity<?> getAllUsers() {
-        logger.info("[auth-service] Admin: Get all users requested");
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) Long cursor,
+                                      @RequestParam(defaultValue = "50") int size,
+                                      @RequestParam(required = false) UserRole role,
+                                      @RequestParam(required = false) String q) {
+        logger.info("[auth-service] Admin: Get users requested - cursor: {}, size: {}, role: {}, q: {}", cursor, size, role, q);
         try {
-            List<UserResponse> users = authService.getAllUsers();
-            return ResponseEntity.ok(ApiResponse.success("사용자 목록이 성공적으로 조회되었습니다.", users));
+            Map<String, Object> page = authService.getUsersPage(cursor, size, role, q);
+            return ResponseEntity.ok(ApiResponse.success("사용자 목록이 성공적으로 조회되었습니다.", page));
         } catch (Exception e) {
-            logger.error("[auth-service] Admin: Get all users failed: {}", e.getMessage());
+            logger.error("[auth-service] Admin: Get users failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.error("사용자 목록 조회에 실패했습니다."));
         }
     }
 
+    /**
+     * Streams every matching user as a JSON array, one keyset page at a time.
+     */
+    @GetMapping(value = "/admin/users/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) UserRole role,
+                                                             @RequestParam(required = false) String q) {
+        logger.info("[auth-service] Admin: User export requested - role: {}, q: {}", role, q);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                authService.forEachUserPage(role, q, page -> {
+                    try {
+                        for (UserResponse user : page) {
+                            generator.writeObject(user);
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.json\"")
+                .body(body);
+    }
+
     @GetMapping("/admin/users/{userId}/sessions")
     public ResponseEntity<?> getUserSessions(@PathVariable Long userId) {
         logger.info("[auth-service] Admin: Get sessions for user: {}", userId);
@@ -217,15 +283,16 @@ public class AuthController {
         logger.info("[auth-service] Admin: Force logout requested for user: {}", userId);
         try {
             String adminEmail = adminDetails.getUsername();
-            User admin = userRepository.findByEmail(adminEmail)
+            User admin = userCache.findByEmail(adminEmail)
                     .orElseThrow(() -> new RuntimeException("Admin user not found"));
             Long adminUserId = admin.getId();
             
-            User user = userRepository.findById(userId)
+            User user = userCache.findById(userId)
                     .orElseThrow(() -> new RuntimeException("해당 사용자를 찾을 수 없습니다."));
             
             tokenBlacklistService.blacklistAllUserTokens(userId, new Date(), adminUserId, adminEmail);
             refreshTokenService.deleteByUserId(userId);
+            sessionManager.closeUserSessions(List.of(userId), CloseStatus.POLICY_VIOLATION);
             
             logger.info("[auth-service] Admin: Force logout completed for user: {} ({}) by admin: {} ({})", 
                        user.getEmail(), userId, adminEmail, adminUserId);
@@ -244,6 +311,37 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/admin/force-logout/bulk")
+    public ResponseEntity<?> bulkForceLogout(@Valid @RequestBody BulkForceLogoutRequest request,
+                                             BindingResult bindingResult,
+                                             @AuthenticationPrincipal UserDetails adminDetails) {
+        logger.info("[auth-service] Admin: Bulk force logout requested - ids: {}, role: {}",
+                request.getUserIds() != null ? request.getUserIds().size() : null, request.getRole());
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(bindingResult.getFieldErrors().get(0).getDefaultMessage()));
+        }
+        try {
+            String adminEmail = adminDetails.getUsername();
+            User admin = userCache.findByEmail(adminEmail)
+                    .orElseThrow(() -> new RuntimeException("Admin user not found"));
+            UserRole role = request.getRole() != null ? UserRole.valueOf(request.getRole()) : null;
+
+            String jobId = bulkForceLogoutService.start(request.getUserIds(), role, admin.getId(), adminEmail);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("일괄 강제 로그아웃이 시작되었습니다. 진행 상황은 실시간 알림으로 전송됩니다.",
+                            Map.of("jobId", jobId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("잘못된 요청입니다: " + e.getMessage()));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ApiResponse.error("처리 중인 일괄 작업이 많습니다. 잠시 후 다시 시도해주세요."));
+        } catch (RuntimeException e) {
+            logger.error("[auth-service] Admin: Bulk force logout failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("일괄 강제 로그아웃에 실패했습니다."));
+        }
+    }
+
     @PostMapping("/admin/blacklist-token")
     public ResponseEntity<?> blacklistToken(@RequestBody Map<String, String> requestBody) {
         logger.info("[auth-service] Admin: Blacklist token requested");
@@ -299,6 +397,7 @@ public class AuthController {
             
             long blacklistedTokens = tokenBlacklistService.countBlacklistedTokens();
             stats.put("blacklistedTokens", blacklistedTokens);
+            stats.putAll(liveStatsService.currentRates());
             
             stats.put("note", "활성 세션은 현재 유효한 리프레시 토큰의 수를 기반으로 추정됩니다.");
             return ResponseEntity.ok(ApiResponse.success("세션 통계가 성공적으로 조회되었습니다.", stats));
@@ -309,6 +408,24 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/admin/session-reconcile")
+    public ResponseEntity<?> startSessionReconcile(@RequestParam(defaultValue = "true") boolean dryRun) {
+        logger.info("[auth-service] Admin: Session key reconcile requested - dryRun: {}", dryRun);
+        if (!sessionKeyReconciler.startAsync(dryRun)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error("이미 정리 작업이 실행 중입니다."));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("세션 키 정리 작업이 시작되었습니다.", Map.of("dryRun", dryRun)));
+    }
+
+    @GetMapping("/admin/session-reconcile")
+    public ResponseEntity<?> getSessionReconcileReport() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", sessionKeyReconciler.isRunning());
+        status.put("lastReport", sessionKeyReconciler.getLastReport());
+        return ResponseEntity.ok(ApiResponse.success("세션 키 정리 결과가 성공적으로 조회되었습니다.", status));
+    }
+
     @GetMapping("/admin/test-endpoint")
     public ResponseEntity<?> testEndpoint() {
         logger.info("[auth-service] TEST ENDPOINT CALLED!");
@@ -316,35 +433,14 @@ public class AuthController {
     }
 
     @GetMapping("/admin/force-logout-history")
-    public ResponseEntity<?> getForceLogoutHistory() {
-        logger.info("[auth-service] Admin: Force logout history requested");
+    public ResponseEntity<?> getForceLogoutHistory(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        logger.info("[auth-service] Admin: Force logout history requested - cursor: {}, size: {}", cursor, size);
         try {
-            List<Map<String, Object>> history = tokenBlacklistService.getForceLogoutHistory();
-            
-            // 사용자 정보 보강
-            for (Map<String, Object> entry : history) {
-                Long userId = (Long) entry.get("userId");
-                Optional<User> userOpt = userRepository.findById(userId);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    entry.put("userEmail", user.getEmail());
-                    entry.put("userName", user.getName());
-                } else {
-                    entry.put("userEmail", "삭제된 사용자");
-                    entry.put("userName", "알 수 없음");
-                }
-                
-                // 타임스탬프를 Date 객체로 변환
-                Object timestampObj = entry.get("timestamp");
-                if (timestampObj != null) {
-                    Long timestamp = timestampObj instanceof String ? 
-                        Long.parseLong((String) timestampObj) : (Long) timestampObj;
-                    entry.put("logoutTime", new Date(timestamp));
-                }
-            }
-            
-            logger.info("[auth-service] Admin: Force logout history retrieved - {} entries", history.size());
-            return ResponseEntity.ok(ApiResponse.success("강제로그아웃 히스토리가 성공적으로 조회되었습니다.", history));
+            Map<String, Object> page = forceLogoutAuditService.getHistory(cursor, size);
+            return ResponseEntity.ok(ApiResponse.success("강제로그아웃 히스토리가 성공적으로 조회되었습니다.", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("잘못된 요청입니다: " + e.getMessage()));
         } catch (Exception e) {
             logger.error("[auth-service] Admin: Force logout history failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,30 @@
+package com.dietdiary.auth.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkForceLogoutRequest {
+    @Size(max = 100000, message = "한 번에 최대 100,000명까지 처리할 수 있습니다.")
+    private List<Long> userIds;
+
+    private String role;
+
+    public BulkForceLogoutRequest() {}
+
+    public List<Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(List<Long> userIds) {
+        this.userIds = userIds;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+}
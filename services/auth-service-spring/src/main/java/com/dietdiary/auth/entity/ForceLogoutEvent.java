@@ -0,0 +1,67 @@
+package com.dietdiary.auth.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Audit record of a user-wide token invalidation (admin force logout or admin re-login).
+ */
+@Entity
+@Table(name = "force_logout_events",
+        indexes = @Index(name = "idx_force_logout_events_created_at_id", columnList = "created_at, id"))
+public class ForceLogoutEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "admin_user_id")
+    private Long adminUserId;
+
+    @Column(name = "admin_email")
+    private String adminEmail;
+
+    @Column(name = "reason", nullable = false, length = 32)
+    private String reason;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public ForceLogoutEvent() {}
+
+    public ForceLogoutEvent(Long userId, Long adminUserId, String adminEmail, String reason, Instant createdAt) {
+        this.userId = userId;
+        this.adminUserId = adminUserId;
+        this.adminEmail = adminEmail;
+        this.reason = reason;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getAdminUserId() {
+        return adminUserId;
+    }
+
+    public String getAdminEmail() {
+        return adminEmail;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -14,6 +14,7 @@ import java.util.Collections;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidationListener.class)
 public class User implements UserDetails {
     
     @Id
@@ -0,0 +1,40 @@
+package com.dietdiary.auth.entity;
+
+import com.dietdiary.auth.service.UserCache;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidates cached user snapshots whenever a user row changes (role, name, password, ...).
+ * The invalidation is published after commit so other instances cannot reload the old row.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private final ObjectProvider<UserCache> userCache;
+
+    public UserCacheInvalidationListener(ObjectProvider<UserCache> userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        Long userId = user.getId();
+        String email = user.getEmail();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.getObject().invalidate(userId, email);
+                }
+            });
+        } else {
+            userCache.getObject().invalidate(userId, email);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.dietdiary.auth.repository;
+
+import com.dietdiary.auth.entity.ForceLogoutEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ForceLogoutEventRepository extends JpaRepository<ForceLogoutEvent, Long> {
+
+    @Query(value = "SELECT * FROM force_logout_events ORDER BY created_at DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<ForceLogoutEvent> findLatest(@Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM force_logout_events WHERE (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<ForceLogoutEvent> findBefore(@Param("createdAt") Instant createdAt, @Param("id") Long id,
+                                      @Param("limit") int limit);
+
+    /**
+     * Inserts one event per user in a single statement (IDENTITY ids rule out JDBC batching through saveAll).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO force_logout_events (user_id, admin_user_id, admin_email, reason, created_at) " +
+            "SELECT u, :adminUserId, :adminEmail, :reason, :createdAt FROM unnest(CAST(:userIds AS bigint[])) AS u",
+            nativeQuery = true)
+    int insertAll(@Param("userIds") Long[] userIds, @Param("adminUserId") Long adminUserId,
+                  @Param("adminEmail") String adminEmail, @Param("reason") String reason,
+                  @Param("createdAt") Instant createdAt);
+}
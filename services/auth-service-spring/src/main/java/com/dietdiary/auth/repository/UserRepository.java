@@ -1,13 +1,55 @@
 package com.dietdiary.auth.repository;
 
+import com.dietdiary.auth.dto.UserResponse;
 import com.dietdiary.auth.entity.User;
+import com.dietdiary.auth.entity.UserRole;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Changes to users must go through the entity (save/delete) so that {@code UserCacheInvalidationListener} drops the
+ * cached snapshot on every instance. A native or bulk {@code @Modifying} UPDATE/DELETE bypasses the JPA callbacks
+ * and must call {@link com.dietdiary.auth.service.UserCache#invalidate} for each affected user after commit.
+ */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    long countByRole(UserRole role);
+
+    /**
+     * Inserts a new USER in a single statement.
+     * @return the new id, or empty if the email is already registered.
+     */
+    @Query(value = "INSERT INTO users (email, password, username, role, created_at) " +
+                   "VALUES (:email, :password, :name, 'USER', :createdAt) " +
+                   "ON CONFLICT (email) DO NOTHING RETURNING id",
+           nativeQuery = true)
+    Optional<Long> insertIfAbsent(@Param("email") String email, @Param("password") String password,
+                                  @Param("name") String name, @Param("createdAt") LocalDateTime createdAt);
+
+    @Query("select new com.dietdiary.auth.dto.UserResponse(u.id, u.email, u.name, u.createdAt) " +
+           "from User u where u.id in :ids")
+    List<UserResponse> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Keyset page of users ordered by id. Never loads the password hash.
+     * {@code pattern} is a lower-case LIKE pattern matched against email and name
+     * (served by the trigram indexes in schema.sql); pass "%" to match everyone.
+     */
+    @Query("select new com.dietdiary.auth.dto.UserResponse(u.id, u.email, u.name, u.createdAt) from User u " +
+           "where u.id > :afterId and u.role in :roles " +
+           "and (lower(u.email) like :pattern escape '\\' or lower(u.name) like :pattern escape '\\') " +
+           "order by u.id")
+    List<UserResponse> findSummaryPage(@Param("afterId") Long afterId, @Param("roles") Collection<UserRole> roles,
+                                       @Param("pattern") String pattern, Limit limit);
 }
\ No newline at end of file
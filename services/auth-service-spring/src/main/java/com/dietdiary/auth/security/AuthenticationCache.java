@@ -0,0 +1,175 @@
+package com.dietdiary.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of validated access tokens to the {@link Authentication} built for them.
+ * <p>
+ * An entry lives for at most {@code app.security.auth-cache.ttl} and never past the token's {@code exp}.
+ * Revocations made on this instance take effect immediately; revocations made elsewhere take effect here
+ * once the entry expires, so the TTL bounds that window.
+ * <p>
+ * Revocations are not applied by walking the cache. They are recorded as stamps (per user, per jti, or for
+ * everyone) that {@link #get} checks in O(1). Each entry carries the time its validation started, taken before
+ * the revocation store was read, so an entry validated before a revocation is rejected even if it was put
+ * after the revocation was recorded. A stamp is only needed for one TTL, because no older entry can still exist.
+ * <p>
+ * Stamps are bounded by time, never by an eviction policy that could drop a live one. Once more than
+ * {@code max-size} stamps of one kind were written within a TTL, they are replaced by a single revoke-everyone
+ * stamp, which costs one re-validation per cached token.
+ */
+@Component
+public class AuthenticationCache {
+
+    private final Cache<String, Entry> entries;
+    private final Map<Long, Long> userRevokedAt = new ConcurrentHashMap<>();
+    private final Map<String, Long> jwtRevokedAt = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final long maxSize;
+    private volatile long allRevokedAt;
+
+    public AuthenticationCache(MeterRegistry meterRegistry,
+                               @Value("${app.security.auth-cache.max-size:10000}") long maxSize,
+                               @Value("${app.security.auth-cache.ttl:30s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        this.allRevokedAt = System.nanoTime() - ttlNanos;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                        long untilExp = TimeUnit.MILLISECONDS.toNanos(entry.expiresAtMillis - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttlNanos, untilExp));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "auth.authentication");
+    }
+
+    public Authentication get(String token) {
+        Entry entry = entries.getIfPresent(token);
+        if (entry == null) {
+            return null;
+        }
+        if (isRevoked(entry)) {
+            entries.asMap().remove(token, entry);
+            return null;
+        }
+        return entry.authentication;
+    }
+
+    /**
+     * Returns the stamp to pass to {@link #put}. Take it before the token is validated.
+     */
+    public long validationStarted() {
+        return System.nanoTime();
+    }
+
+    public void put(String token, String jwtId, Long userId, Date expiresAt, long validatedAt,
+                    Authentication authentication) {
+        if (expiresAt == null) {
+            return;
+        }
+        entries.put(token, new Entry(jwtId, userId, expiresAt.getTime(), validatedAt, authentication));
+    }
+
+    /**
+     * Call after the revocation has been written to the revocation store.
+     */
+    public void evictByJwtId(String jwtId) {
+        if (jwtId != null) {
+            long now = System.nanoTime();
+            jwtRevokedAt.put(jwtId, now);
+            checkCapacity(jwtRevokedAt, now);
+        }
+    }
+
+    public void evictByUserId(Long userId) {
+        if (userId != null) {
+            long now = System.nanoTime();
+            userRevokedAt.put(userId, now);
+            checkCapacity(userRevokedAt, now);
+        }
+    }
+
+    /**
+     * Stamps each user, or everyone at once when the batch is larger than the cache itself.
+     */
+    public void evictByUserIds(Collection<Long> userIds) {
+        long now = System.nanoTime();
+        if (userIds.size() > maxSize) {
+            revokeAll(now);
+            return;
+        }
+        for (Long userId : userIds) {
+            if (userId != null) {
+                userRevokedAt.put(userId, now);
+            }
+        }
+        checkCapacity(userRevokedAt, now);
+    }
+
+    /**
+     * Drops stamps older than one TTL once the map is over capacity, and falls back to revoking everyone if the
+     * stamps written within the last TTL still exceed it (e.g. a bulk logout sent in many smaller batches).
+     */
+    private synchronized <K> void checkCapacity(Map<K, Long> stamps, long now) {
+        if (stamps.size() <= maxSize) {
+            return;
+        }
+        stamps.values().removeIf(revokedAt -> now - revokedAt > ttlNanos);
+        if (stamps.size() > maxSize) {
+            revokeAll(now);
+        }
+    }
+
+    private void revokeAll(long now) {
+        allRevokedAt = now;
+        entries.invalidateAll();
+        // Only stamps the revoke-everyone stamp covers; one written concurrently after it must survive
+        userRevokedAt.values().removeIf(revokedAt -> revokedAt - now <= 0);
+        jwtRevokedAt.values().removeIf(revokedAt -> revokedAt - now <= 0);
+    }
+
+    private boolean isRevoked(Entry entry) {
+        if (entry.validatedAt - allRevokedAt <= 0) {
+            return true;
+        }
+        Long jwtRevoked = entry.jwtId != null ? jwtRevokedAt.get(entry.jwtId) : null;
+        if (jwtRevoked != null && entry.validatedAt - jwtRevoked <= 0) {
+            return true;
+        }
+        Long userRevoked = entry.userId != null ? userRevokedAt.get(entry.userId) : null;
+        return userRevoked != null && entry.validatedAt - userRevoked <= 0;
+    }
+
+    private record Entry(String jwtId, Long userId, long expiresAtMillis, long validatedAt,
+                         Authentication authentication) {
+    }
+}
@@ -5,11 +5,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -32,6 +32,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -43,7 +46,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             logger.info("[JwtFilter] JWT present: {}", jwt != null);
 
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
+            long validatedAt = authenticationCache.validationStarted();
+            Authentication cached = StringUtils.hasText(jwt) ? authenticationCache.get(jwt) : null;
+            if (cached != null) {
+                SecurityContextHolder.getContext().setAuthentication(cached);
+                logger.debug("[JwtFilter] Authentication served from cache for user: {}", cached.getName());
+            } else if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
                 JWTClaimsSet claims = jwtUtil.getClaimsFromToken(jwt);
                 String email = claims.getSubject();
                 
@@ -62,9 +70,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     .authorities(authorities)
                     .build();
                     
+                // Shared across requests via the cache, so no per-request details are attached.
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authenticationCache.put(jwt, claims.getJWTID(), claims.getLongClaim("userId"),
+                        claims.getExpirationTime(), validatedAt, authentication);
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 logger.info("[JwtFilter] Authentication set successfully for user: {}", email);
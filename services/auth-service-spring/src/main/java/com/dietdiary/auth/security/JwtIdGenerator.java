@@ -0,0 +1,23 @@
+package com.dietdiary.auth.security;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates {@code jti} values.
+ * A jti only has to be unique, not secret (the token is signed), so it is drawn from {@link ThreadLocalRandom}
+ * instead of {@link UUID#randomUUID()}, whose shared {@code SecureRandom} serialises concurrent logins.
+ * The result keeps the random (version 4) UUID format, so stored blacklist keys look the same.
+ */
+public final class JwtIdGenerator {
+
+    private JwtIdGenerator() {
+    }
+
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
+    }
+}
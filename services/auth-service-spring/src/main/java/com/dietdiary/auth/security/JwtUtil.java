@@ -16,12 +16,12 @@ import org.springframework.stereotype.Component;
 
 import java.text.ParseException;
 import java.util.Date;
-import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    private static final JWSHeader HS256_HEADER = new JWSHeader(JWSAlgorithm.HS256);
 
     @Value("${jwt.secret}")
     private String secret;
@@ -47,7 +47,7 @@ public class JwtUtil {
     public String generateAccessToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + accessTokenExpiration);
-        String jwtId = UUID.randomUUID().toString();
+        String jwtId = JwtIdGenerator.next();
 
         logger.debug("Creating JWT for user: {}, name: {}, ID: {}, JWT ID: {}", 
                     user.getEmail(), user.getName(), user.getId(), jwtId);
@@ -63,7 +63,9 @@ public class JwtUtil {
                 .build();
         
         String token = createToken(claimsSet);
-        logger.debug("Generated JWT claims: {}", claimsSet.toJSONObject());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Generated JWT claims: {}", claimsSet.toJSONObject());
+        }
         return token;
     }
 
@@ -82,7 +84,7 @@ public class JwtUtil {
     }
 
     public String createToken(JWTClaimsSet claimsSet) {
-        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claimsSet);
+        SignedJWT signedJWT = new SignedJWT(HS256_HEADER, claimsSet);
         try {
             signedJWT.sign(signer);
             return signedJWT.serialize();
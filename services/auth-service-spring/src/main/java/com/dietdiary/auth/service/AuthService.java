@@ -11,27 +11,37 @@ import com.dietdiary.auth.websocket.service.WebSocketSessionManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
 import java.util.Date;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class AuthService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+    private static final int MAX_USER_PAGE_SIZE = 200;
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final String DUPLICATE_EMAIL_MESSAGE = "이미 존재하는 이메일입니다.";
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
@@ -41,12 +51,18 @@ public class AuthService {
     private final TokenBlacklistService tokenBlacklistService;
     private final WebSocketSessionManager sessionManager;
     private final ObjectMapper objectMapper;
+    private final UserCache userCache;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final LiveStatsService liveStatsService;
+    private final TransactionTemplate readOnlyTransaction;
 
     public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder,
                        AuthenticationManager authenticationManager, JwtUtil jwtUtil,
                        RefreshTokenService refreshTokenService, TokenBlacklistService tokenBlacklistService,
                        WebSocketSessionManager sessionManager,
-                       ObjectMapper objectMapper) {
+                       ObjectMapper objectMapper, UserCache userCache,
+                       RegisteredEmailFilter registeredEmailFilter, LiveStatsService liveStatsService,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
@@ -55,23 +71,38 @@ public class AuthService {
         this.tokenBlacklistService = tokenBlacklistService;
         this.sessionManager = sessionManager;
         this.objectMapper = objectMapper;
+        this.userCache = userCache;
+        this.registeredEmailFilter = registeredEmailFilter;
+        this.liveStatsService = liveStatsService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
+    /**
+     * Registers a user with at most one existence query and one insert.
+     * Duplicates are rejected before the password is hashed whenever the email filter reports a possible match.
+     */
     public UserResponse register(RegisterRequest request) {
-        logger.info("[auth-service] Registering user: {}", request.getEmail());
-        try {
-            if (userRepository.existsByEmail(request.getEmail())) {
-                throw new RuntimeException("Email already exists.");
-            }
-            String hashedPassword = passwordEncoder.encode(request.getPassword());
-            User user = new User(request.getEmail(), hashedPassword, request.getName());
-            User savedUser = userRepository.save(user);
-            logger.info("[auth-service] User registered successfully: {}", savedUser.getEmail());
-            return new UserResponse(savedUser);
-        } catch (DataIntegrityViolationException e) {
-            logger.error("[auth-service] Registration error - duplicate email: {}", request.getEmail());
-            throw new RuntimeException("Email already exists.");
+        String email = request.getEmail();
+        logger.info("[auth-service] Registering user: {}", email);
+
+        if (registeredEmailFilter.mightContain(email) && userRepository.existsByEmail(email)) {
+            logger.info("[auth-service] Registration rejected - duplicate email: {}", email);
+            throw new RuntimeException(DUPLICATE_EMAIL_MESSAGE);
         }
+
+        String hashedPassword = passwordEncoder.encode(request.getPassword());
+        LocalDateTime createdAt = LocalDateTime.now();
+        Long userId = userRepository.insertIfAbsent(email, hashedPassword, request.getName(), createdAt)
+                .orElse(null);
+        registeredEmailFilter.put(email);
+        if (userId == null) {
+            logger.info("[auth-service] Registration rejected on insert - duplicate email: {}", email);
+            throw new RuntimeException(DUPLICATE_EMAIL_MESSAGE);
+        }
+
+        logger.info("[auth-service] User registered successfully: {}", email);
+        return new UserResponse(userId, email, request.getName(), createdAt);
     }
 
     public Map<String, Object> login(LoginRequest request, String ipAddress, String userAgent) {
@@ -85,6 +116,7 @@ public class AuthService {
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
             User user = (User) authentication.getPrincipal();
+            userCache.put(user);
             
             // Admin/Super Admin 중복 로그인 처리
             if (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.SUPER_ADMIN) {
@@ -117,26 +149,77 @@ public class AuthService {
                        user.getId(), user.getEmail(), user.getName());
             
             String accessToken = jwtUtil.generateAccessToken(user);
-            String refreshToken = refreshTokenService.createRefreshToken(user.getEmail());
+            String refreshSessionId = refreshTokenService.createRefreshToken(user.getEmail());
 
             Map<String, Object> response = new HashMap<>();
             response.put("accessToken", accessToken);
-            response.put("refreshToken", refreshToken);
+            response.put("refreshSessionId", refreshSessionId);
             response.put("user", new UserResponse(user));
 
+            liveStatsService.loginSucceeded();
             logger.info("[auth-service] User logged in successfully: {}", user.getEmail());
             return response;
         } catch (Exception e) {
+            liveStatsService.loginFailed();
             logger.error("[auth-service] Login failed for user: {}. Reason: {}", request.getEmail(), e.getMessage());
             throw new RuntimeException("Invalid email or password.");
         }
     }
 
+    /**
+     * Returns one keyset page of users ordered by id.
+     * @param afterId Last id of the previous page (null for the first page).
+     * @param role Optional role filter.
+     * @param query Optional case-insensitive substring matched against email and name.
+     * @return Map with {@code items} and {@code nextCursor} (null on the last page).
+     */
     @Transactional(readOnly = true)
-    public List<UserResponse> getAllUsers() {
-        logger.info("[auth-service] Fetching all users from the database");
-        return userRepository.findAll().stream()
-                .map(UserResponse::new)
-                .collect(Collectors.toList());
+    public Map<String, Object> getUsersPage(Long afterId, int size, UserRole role, String query) {
+        int limit = Math.max(1, Math.min(size, MAX_USER_PAGE_SIZE));
+        logger.info("[auth-service] Fetching users page - afterId: {}, size: {}, role: {}, query: {}", afterId, limit, role, query);
+        List<UserResponse> users = userRepository.findSummaryPage(
+                afterId != null ? afterId : 0L, rolesFor(role), likePattern(query), Limit.of(limit));
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", users);
+        page.put("nextCursor", users.size() == limit ? users.get(users.size() - 1).getId() : null);
+        return page;
+    }
+
+    /**
+     * Walks every matching user page by page so a full export never holds more than one page in memory.
+     * Each page is read in its own short read-only transaction, so no connection is held while the consumer
+     * writes to a slow client.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void forEachUserPage(UserRole role, String query, Consumer<List<UserResponse>> pageConsumer) {
+        Collection<UserRole> roles = rolesFor(role);
+        String pattern = likePattern(query);
+        long afterId = 0L;
+        List<UserResponse> page;
+        do {
+            long after = afterId;
+            page = readOnlyTransaction.execute(status ->
+                    userRepository.findSummaryPage(after, roles, pattern, Limit.of(EXPORT_PAGE_SIZE)));
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
+    private Collection<UserRole> rolesFor(UserRole role) {
+        return role != null ? List.of(role) : EnumSet.allOf(UserRole.class);
+    }
+
+    private String likePattern(String query) {
+        if (query == null || query.isBlank()) {
+            return "%";
+        }
+        String escaped = query.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
     }
 }
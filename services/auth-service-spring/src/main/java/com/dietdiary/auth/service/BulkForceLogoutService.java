@@ -0,0 +1,157 @@
+package com.dietdiary.auth.service;
+
+import com.dietdiary.auth.dto.UserResponse;
+import com.dietdiary.auth.entity.UserRole;
+import com.dietdiary.auth.repository.UserRepository;
+import com.dietdiary.auth.websocket.service.WebSocketSessionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Force-logs-out many users as a background job.
+ * <p>
+ * Users are processed in batches of {@value #BATCH_SIZE}: each batch costs one user query, one Redis pipeline
+ * plus one ZADD for the invalidation keys, one script call for the refresh sessions, one audit INSERT and one
+ * publish that closes the users' WebSocket sessions.
+ * Progress is pushed to the requesting admin as {@code BULK_FORCE_LOGOUT_PROGRESS} WebSocket messages.
+ * The requesting admin is never included.
+ */
+@Service
+public class BulkForceLogoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkForceLogoutService.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final RefreshTokenService refreshTokenService;
+    private final WebSocketSessionManager sessionManager;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
+
+    public BulkForceLogoutService(UserRepository userRepository, TokenBlacklistService tokenBlacklistService,
+                                  RefreshTokenService refreshTokenService, WebSocketSessionManager sessionManager,
+                                  ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.refreshTokenService = refreshTokenService;
+        this.sessionManager = sessionManager;
+        this.objectMapper = objectMapper;
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(1);
+        this.executor.setMaxPoolSize(1);
+        this.executor.setQueueCapacity(10);
+        this.executor.setThreadNamePrefix("bulk-logout-");
+        this.executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Queues a bulk force logout for either an explicit list of user ids or every user with a role.
+     * @return The job id used in progress messages.
+     */
+    public String start(List<Long> userIds, UserRole role, Long adminUserId, String adminEmail) {
+        if ((userIds == null || userIds.isEmpty()) == (role == null)) {
+            throw new IllegalArgumentException("userIds 또는 role 중 하나만 지정해야 합니다.");
+        }
+        String jobId = UUID.randomUUID().toString();
+        List<Long> ids = userIds != null ? new ArrayList<>(new LinkedHashSet<>(userIds)) : null;
+        executor.execute(() -> run(jobId, ids, role, adminUserId, adminEmail));
+        logger.info("[BulkForceLogout] Job {} queued by admin {} - ids: {}, role: {}",
+                jobId, adminEmail, ids != null ? ids.size() : null, role);
+        return jobId;
+    }
+
+    private void run(String jobId, List<Long> userIds, UserRole role, Long adminUserId, String adminEmail) {
+        long start = System.currentTimeMillis();
+        long total = userIds != null ? userIds.size() : userRepository.countByRole(role);
+        long processed = 0;
+        long sessionsDeleted = 0;
+        Date now = new Date();
+        try {
+            if (userIds != null) {
+                for (int from = 0; from < userIds.size(); from += BATCH_SIZE) {
+                    List<Long> chunk = userIds.subList(from, Math.min(from + BATCH_SIZE, userIds.size()));
+                    List<Long> existing = userRepository.findSummariesByIdIn(chunk).stream()
+                            .map(UserResponse::getId)
+                            .filter(id -> !id.equals(adminUserId))
+                            .toList();
+                    sessionsDeleted += revoke(existing, now, adminUserId, adminEmail);
+                    processed += chunk.size();
+                    progress(adminEmail, jobId, processed, total, sessionsDeleted, false, null, start);
+                }
+            } else {
+                long afterId = 0L;
+                List<UserResponse> page;
+                do {
+                    page = userRepository.findSummaryPage(afterId, EnumSet.of(role), "%", Limit.of(BATCH_SIZE));
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    afterId = page.get(page.size() - 1).getId();
+                    List<Long> ids = page.stream().map(UserResponse::getId)
+                            .filter(id -> !id.equals(adminUserId))
+                            .toList();
+                    sessionsDeleted += revoke(ids, now, adminUserId, adminEmail);
+                    processed += page.size();
+                    progress(adminEmail, jobId, processed, total, sessionsDeleted, false, null, start);
+                } while (page.size() == BATCH_SIZE);
+            }
+            progress(adminEmail, jobId, processed, total, sessionsDeleted, true, null, start);
+            logger.info("[BulkForceLogout] Job {} completed - users: {}, sessions: {}, elapsed: {}ms",
+                    jobId, processed, sessionsDeleted, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("[BulkForceLogout] Job {} failed after {} users: {}", jobId, processed, e.getMessage(), e);
+            progress(adminEmail, jobId, processed, total, sessionsDeleted, true, e.getMessage(), start);
+        }
+    }
+
+    private long revoke(List<Long> userIds, Date now, Long adminUserId, String adminEmail) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        tokenBlacklistService.blacklistUsers(userIds, now, adminUserId, adminEmail);
+        long deleted = refreshTokenService.deleteByUserIds(userIds);
+        sessionManager.closeUserSessions(userIds, CloseStatus.POLICY_VIOLATION);
+        return deleted;
+    }
+
+    private void progress(String adminEmail, String jobId, long processed, long total, long sessionsDeleted,
+                          boolean done, String error, long start) {
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("type", "BULK_FORCE_LOGOUT_PROGRESS");
+            payload.put("jobId", jobId);
+            payload.put("processed", processed);
+            payload.put("total", total);
+            payload.put("sessionsDeleted", sessionsDeleted);
+            payload.put("done", done);
+            payload.put("elapsedMs", System.currentTimeMillis() - start);
+            if (error != null) {
+                payload.put("error", error);
+            }
+            sessionManager.sendToUser(adminEmail, objectMapper.writeValueAsString(payload));
+        } catch (Exception e) {
+            logger.warn("[BulkForceLogout] Failed to send progress for job {}: {}", jobId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.dietdiary.auth.service;
+
+import com.dietdiary.auth.dto.UserResponse;
+import com.dietdiary.auth.entity.ForceLogoutEvent;
+import com.dietdiary.auth.repository.ForceLogoutEventRepository;
+import com.dietdiary.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Durable, time-ordered log of force-logout events.
+ * History is read with keyset pagination on (created_at, id), so each page costs one index range scan
+ * plus one batched user lookup regardless of how many events exist.
+ */
+@Service
+public class ForceLogoutAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForceLogoutAuditService.class);
+    private static final String REASON_FORCE_LOGOUT = "FORCE_LOGOUT";
+    private static final String REASON_BULK_FORCE_LOGOUT = "BULK_FORCE_LOGOUT";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ForceLogoutEventRepository eventRepository;
+    private final UserRepository userRepository;
+
+    public ForceLogoutAuditService(ForceLogoutEventRepository eventRepository, UserRepository userRepository) {
+        this.eventRepository = eventRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Transactional
+    public void record(Long userId, Date time, Long adminUserId, String adminEmail) {
+        eventRepository.save(new ForceLogoutEvent(userId, adminUserId, adminEmail, REASON_FORCE_LOGOUT,
+                Instant.ofEpochMilli(time.getTime())));
+    }
+
+    @Transactional
+    public void recordAll(Collection<Long> userIds, Date time, Long adminUserId, String adminEmail) {
+        eventRepository.insertAll(userIds.toArray(Long[]::new), adminUserId, adminEmail, REASON_BULK_FORCE_LOGOUT,
+                Instant.ofEpochMilli(time.getTime()));
+    }
+
+    /**
+     * Returns one page of history, newest first.
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @param size Page size (capped at {@value #MAX_PAGE_SIZE}).
+     * @return Map with {@code items} and {@code nextCursor} (null on the last page).
+     * @throws IllegalArgumentException if the cursor is not one this method returned.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getHistory(String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<ForceLogoutEvent> events;
+        if (cursor == null || cursor.isBlank()) {
+            events = eventRepository.findLatest(limit);
+        } else {
+            String[] parts = cursor.split("_", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            try {
+                events = eventRepository.findBefore(Instant.ofEpochMilli(Long.parseLong(parts[0])),
+                        Long.parseLong(parts[1]), limit);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+
+        Set<Long> userIds = events.stream().map(ForceLogoutEvent::getUserId).collect(Collectors.toSet());
+        Map<Long, UserResponse> users = userIds.isEmpty() ? Map.of() :
+                userRepository.findSummariesByIdIn(userIds).stream()
+                        .collect(Collectors.toMap(UserResponse::getId, Function.identity()));
+
+        List<Map<String, Object>> items = new ArrayList<>(events.size());
+        for (ForceLogoutEvent event : events) {
+            Map<String, Object> entry = new HashMap<>();
+            long timestamp = event.getCreatedAt().toEpochMilli();
+            entry.put("userId", event.getUserId());
+            entry.put("timestamp", timestamp);
+            entry.put("logoutTime", new Date(timestamp));
+            entry.put("adminUserId", event.getAdminUserId());
+            entry.put("adminEmail", event.getAdminEmail() != null ? event.getAdminEmail() : "system");
+            entry.put("reason", event.getReason());
+
+            UserResponse user = users.get(event.getUserId());
+            entry.put("userEmail", user != null ? user.getEmail() : "삭제된 사용자");
+            entry.put("userName", user != null ? user.getName() : "알 수 없음");
+            items.add(entry);
+        }
+
+        String nextCursor = null;
+        if (events.size() == limit) {
+            ForceLogoutEvent last = events.get(events.size() - 1);
+            nextCursor = last.getCreatedAt().toEpochMilli() + "_" + last.getId();
+        }
+        logger.debug("[ForceLogoutAudit] History page - cursor: {}, size: {}", cursor, items.size());
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", nextCursor);
+        return page;
+    }
+}
@@ -0,0 +1,125 @@
+package com.dietdiary.auth.service;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read/delete access to refresh-token sessions written in the old JSON layout
+ * ({@code refresh_token:}, {@code user_refresh:}, {@code hash_to_token:}).
+ * New sessions are never written here; remaining entries are migrated on first use or expire with their TTL.
+ */
+@Component
+class LegacyRefreshTokenStore {
+
+    static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
+    static final String USER_REFRESH_TOKEN_PREFIX = "user_refresh:";
+    static final String HASH_TO_TOKEN_PREFIX = "hash_to_token:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    LegacyRefreshTokenStore(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Returns the legacy token data for a cookie hash and removes all of its keys.
+     */
+    Optional<Map<String, Object>> takeByHashedToken(String hashedToken) {
+        String originalToken = (String) redisTemplate.opsForValue().get(HASH_TO_TOKEN_PREFIX + hashedToken);
+        if (originalToken == null) {
+            return Optional.empty();
+        }
+
+        Optional<Map<String, Object>> tokenData = findByToken(originalToken);
+        tokenData.ifPresent(data -> deleteUserPointer(((Number) data.get("userId")).longValue(), originalToken));
+        redisTemplate.delete(List.of(REFRESH_TOKEN_PREFIX + originalToken, HASH_TO_TOKEN_PREFIX + hashedToken));
+        return tokenData;
+    }
+
+    boolean deleteByHashedToken(String hashedToken) {
+        return takeByHashedToken(hashedToken).isPresent();
+    }
+
+    void deleteByUserId(Long userId, String cookieSalt) {
+        String existingToken = (String) redisTemplate.opsForValue().get(USER_REFRESH_TOKEN_PREFIX + userId);
+        if (existingToken != null) {
+            String hashedToken = DigestUtils.sha256Hex(existingToken + cookieSalt);
+            redisTemplate.delete(List.of(
+                    REFRESH_TOKEN_PREFIX + existingToken,
+                    USER_REFRESH_TOKEN_PREFIX + userId,
+                    HASH_TO_TOKEN_PREFIX + hashedToken));
+        }
+    }
+
+    /**
+     * Pipelined variant of {@link #deleteByUserId}: one round trip to read the pointers, one DEL for all keys.
+     */
+    void deleteByUserIds(Collection<Long> userIds, String cookieSalt) {
+        List<Long> ids = new ArrayList<>(userIds);
+        List<Object> tokens = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ids.forEach(userId -> ops.opsForValue().get(USER_REFRESH_TOKEN_PREFIX + userId));
+                return null;
+            }
+        });
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (tokens.get(i) instanceof String token) {
+                keys.add(REFRESH_TOKEN_PREFIX + token);
+                keys.add(USER_REFRESH_TOKEN_PREFIX + ids.get(i));
+                keys.add(HASH_TO_TOKEN_PREFIX + DigestUtils.sha256Hex(token + cookieSalt));
+            }
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+
+    List<Map<String, Object>> findSessionsByUserId(Long userId, String cookieSalt) {
+        String token = (String) redisTemplate.opsForValue().get(USER_REFRESH_TOKEN_PREFIX + userId);
+        if (token == null) {
+            return Collections.emptyList();
+        }
+
+        return findByToken(token)
+                .map(tokenData -> {
+                    Map<String, Object> sessionInfo = new HashMap<>();
+                    sessionInfo.put("tokenHash", DigestUtils.sha256Hex(token + cookieSalt));
+                    sessionInfo.put("issuedAt", tokenData.get("issuedAt"));
+                    sessionInfo.put("expiryDate", tokenData.get("expiryDate"));
+                    return Collections.singletonList(sessionInfo);
+                })
+                .orElse(Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<Map<String, Object>> findByToken(String token) {
+        Object tokenData = redisTemplate.opsForValue().get(REFRESH_TOKEN_PREFIX + token);
+        if (tokenData instanceof Map) {
+            return Optional.of((Map<String, Object>) tokenData);
+        }
+        return Optional.empty();
+    }
+
+    private void deleteUserPointer(Long userId, String token) {
+        String userKey = USER_REFRESH_TOKEN_PREFIX + userId;
+        if (token.equals(redisTemplate.opsForValue().get(userKey))) {
+            redisTemplate.delete(userKey);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.dietdiary.auth.service;
+
+import com.dietdiary.auth.websocket.service.WebSocketSessionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Live counters for the admin dashboard.
+ * <p>
+ * The login, logout, refresh and revocation paths record changes here as they happen. Every push interval
+ * the accumulated changes are flushed: login and failed-login counts go to per-minute Redis buckets shared
+ * by all instances, and one {@code STATS_DELTA} message with this instance's changes is broadcast to the
+ * connected admins. At most one message per instance per interval is sent, however busy the paths are, and
+ * an idle interval still sends one when the rates moved, so they decay to zero on the dashboard. Changes
+ * that could not be flushed are carried into the next interval.
+ * <p>
+ * Deltas are not replayed to admins who were disconnected, so every snapshot interval a
+ * {@code STATS_SNAPSHOT} with the absolute totals registered through {@link #trackTotal} replaces whatever
+ * the dashboard has summed up. There is no login throttle yet, so failed logins stand in for throttled attempts.
+ */
+@Service
+public class LiveStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveStatsService.class);
+    private static final String MINUTE_BUCKET_PREFIX = "auth:stats:m:";
+    private static final String FIELD_LOGINS = "logins";
+    private static final String FIELD_FAILED = "failed";
+    private static final Duration BUCKET_TTL = Duration.ofMinutes(3);
+
+    private final StringRedisTemplate redisTemplate;
+    private final WebSocketSessionManager sessionManager;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder sessionDelta = new LongAdder();
+    private final LongAdder revocationDelta = new LongAdder();
+    private final LongAdder logins = new LongAdder();
+    private final LongAdder failedLogins = new LongAdder();
+    private final Map<String, LongSupplier> totals = new ConcurrentHashMap<>();
+    private Map<String, Object> lastRates = Map.of();
+
+    public LiveStatsService(StringRedisTemplate redisTemplate, WebSocketSessionManager sessionManager,
+                            ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.sessionManager = sessionManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Registers an absolute total that each {@code STATS_SNAPSHOT} reports under {@code field}.
+     */
+    public void trackTotal(String field, LongSupplier total) {
+        totals.put(field, total);
+    }
+
+    public void sessionsChanged(long delta) {
+        sessionDelta.add(delta);
+    }
+
+    public void revocationsChanged(long delta) {
+        revocationDelta.add(delta);
+    }
+
+    public void loginSucceeded() {
+        logins.increment();
+    }
+
+    public void loginFailed() {
+        failedLogins.increment();
+    }
+
+    /**
+     * Sliding one-minute rates across all instances, estimated from the current and previous minute buckets.
+     * @return Map with {@code loginsPerMinute} and {@code throttledPerMinute}.
+     */
+    public Map<String, Object> currentRates() {
+        long now = System.currentTimeMillis();
+        long minute = now / 60_000;
+        double previousWeight = 1.0 - (now % 60_000) / 60_000.0;
+
+        List<Object> current = redisTemplate.opsForHash().multiGet(MINUTE_BUCKET_PREFIX + minute,
+                List.of(FIELD_LOGINS, FIELD_FAILED));
+        List<Object> previous = redisTemplate.opsForHash().multiGet(MINUTE_BUCKET_PREFIX + (minute - 1),
+                List.of(FIELD_LOGINS, FIELD_FAILED));
+
+        Map<String, Object> rates = new HashMap<>();
+        rates.put("loginsPerMinute", Math.round(toLong(current.get(0)) + toLong(previous.get(0)) * previousWeight));
+        rates.put("throttledPerMinute", Math.round(toLong(current.get(1)) + toLong(previous.get(1)) * previousWeight));
+        return rates;
+    }
+
+    @Scheduled(fixedRateString = "${app.stats.push-interval-ms:1000}")
+    public void flush() {
+        long sessions = sessionDelta.sumThenReset();
+        long revocations = revocationDelta.sumThenReset();
+        long loginCount = logins.sumThenReset();
+        long failedCount = failedLogins.sumThenReset();
+
+        if (loginCount > 0 || failedCount > 0) {
+            try {
+                String bucket = MINUTE_BUCKET_PREFIX + (System.currentTimeMillis() / 60_000);
+                redisTemplate.opsForHash().increment(bucket, FIELD_LOGINS, loginCount);
+                redisTemplate.opsForHash().increment(bucket, FIELD_FAILED, failedCount);
+                redisTemplate.expire(bucket, BUCKET_TTL);
+            } catch (Exception e) {
+                logins.add(loginCount);
+                failedLogins.add(failedCount);
+                logger.warn("[LiveStats] Failed to record login counts: {}", e.getMessage());
+            }
+        }
+
+        try {
+            Map<String, Object> rates = currentRates();
+            if (sessions == 0 && revocations == 0 && rates.equals(lastRates)) {
+                return;
+            }
+            Map<String, Object> delta = new HashMap<>(rates);
+            delta.put("type", "STATS_DELTA");
+            delta.put("timestamp", System.currentTimeMillis());
+            delta.put("activeSessions", sessions);
+            delta.put("blacklistedTokens", revocations);
+            sessionManager.broadcast(objectMapper.writeValueAsString(delta));
+            lastRates = rates;
+        } catch (Exception e) {
+            sessionDelta.add(sessions);
+            revocationDelta.add(revocations);
+            logger.warn("[LiveStats] Failed to push stats delta: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.stats.snapshot-interval-ms:30000}")
+    public void pushSnapshot() {
+        try {
+            Map<String, Object> snapshot = new HashMap<>(currentRates());
+            totals.forEach((field, total) -> snapshot.put(field, total.getAsLong()));
+            snapshot.put("type", "STATS_SNAPSHOT");
+            snapshot.put("timestamp", System.currentTimeMillis());
+            sessionManager.broadcast(objectMapper.writeValueAsString(snapshot));
+        } catch (Exception e) {
+            logger.warn("[LiveStats] Failed to push stats snapshot: {}", e.getMessage());
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0L;
+    }
+}
@@ -1,148 +1,470 @@
 package com.dietdiary.auth.service;
 
 import com.dietdiary.auth.entity.User;
-import com.dietdiary.auth.repository.UserRepository;
 import com.dietdiary.auth.security.JwtUtil;
 import com.dietdiary.auth.util.CookieUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Stores refresh-token sessions in Redis.
+ * <p>
+ * Each session is stored once, as a small hash keyed by the cookie hash ({@code u}=userId,
+ * {@code i}=issuedAt, {@code e}=expiry, both in epoch seconds), plus a per-user index entry
+ * holding only the cookie hash. Live sessions are also kept in a sorted set scored by expiry so
+ * they can be counted without scanning the keyspace. The raw refresh token is never persisted.
+ * <p>
+ * Users are spread over {@value #SESSION_BUCKETS} buckets ({@code userId mod} {@value #SESSION_BUCKETS}),
+ * each with its own hash tag {@code {rt:<bucket>}} and its own expiry index, so the sessions are spread over
+ * the cluster while every script still touches a single slot. The cookie carries {@code <bucket>.<hash>}.
+ * Sessions from the earlier single-tag {@code {rt}} layout and the legacy JSON layout carry a bare hash;
+ * they are moved into their bucket on the next refresh, which also rewrites the cookie.
+ */
 @Service
 public class RefreshTokenService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    // Part of every issued cookie; changing it orphans all live sessions.
+    static final int SESSION_BUCKETS = 256;
+    static final Layout PREVIOUS_LAYOUT = new Layout("{rt}");
+    static final List<Layout> BUCKETS = IntStream.range(0, SESSION_BUCKETS)
+            .mapToObj(bucket -> new Layout("{rt:" + bucket + "}"))
+            .toList();
+
+    private static final String FIELD_USER_ID = "u";
+    private static final String FIELD_ISSUED_AT = "i";
+    private static final String FIELD_EXPIRES_AT = "e";
+
+    /**
+     * Key names under one hash tag. A script only ever receives keys from one layout.
+     */
+    record Layout(String tag) {
+        String sessionPrefix() {
+            return tag + ":s:";
+        }
+
+        String userPrefix() {
+            return tag + ":u:";
+        }
+
+        String session(String hash) {
+            return sessionPrefix() + hash;
+        }
+
+        String user(Long userId) {
+            return userPrefix() + userId;
+        }
+
+        String expiryIndex() {
+            return tag + ":exp";
+        }
+
+        /**
+         * @return The layout of a {@code {rt...}} key, taken from its hash tag.
+         */
+        static Layout of(String key) {
+            return new Layout(key.substring(0, key.indexOf('}') + 1));
+        }
+    }
+
+    /**
+     * Replaces the user's current session with a new one and returns the change in indexed sessions.
+     * KEYS[1]=session key, KEYS[2]=user index key, KEYS[3]=expiry index;
+     * ARGV: session prefix, userId, issuedAt, expiresAt, ttlMillis, hash.
+     */
+    private static final RedisScript<Long> CREATE_SESSION_SCRIPT = new DefaultRedisScript<>("""
+            local removed = 0
+            local old = redis.call('GET', KEYS[2])
+            if old then
+                redis.call('DEL', ARGV[1] .. old)
+                removed = redis.call('ZREM', KEYS[3], old)
+            end
+            redis.call('HSET', KEYS[1], 'u', ARGV[2], 'i', ARGV[3], 'e', ARGV[4])
+            redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            redis.call('SET', KEYS[2], ARGV[6], 'PX', ARGV[5])
+            return redis.call('ZADD', KEYS[3], ARGV[4], ARGV[6]) - removed
+            """, Long.class);
+
+    /**
+     * Removes the session referenced by a user index entry.
+     * KEYS[1]=user index key, KEYS[2]=expiry index; ARGV: session prefix.
+     */
+    private static final RedisScript<Long> DELETE_BY_USER_SCRIPT = new DefaultRedisScript<>("""
+            local hash = redis.call('GET', KEYS[1])
+            if not hash then return 0 end
+            redis.call('DEL', ARGV[1] .. hash, KEYS[1])
+            redis.call('ZREM', KEYS[2], hash)
+            return 1
+            """, Long.class);
+
+    /**
+     * Removes the sessions of many users in one round trip.
+     * KEYS[1]=expiry index, KEYS[2..n]=user index keys; ARGV: session prefix.
+     */
+    private static final RedisScript<Long> DELETE_BY_USERS_SCRIPT = new DefaultRedisScript<>("""
+            local removed = 0
+            for i = 2, #KEYS do
+                local hash = redis.call('GET', KEYS[i])
+                if hash then
+                    redis.call('DEL', ARGV[1] .. hash, KEYS[i])
+                    removed = removed + redis.call('ZREM', KEYS[1], hash)
+                end
+            end
+            return removed
+            """, Long.class);
+
+    /**
+     * Removes a session and its user index entry if the index still points at it.
+     * KEYS[1]=session key, KEYS[2]=expiry index; ARGV: user index prefix, hash.
+     */
+    private static final RedisScript<Long> DELETE_BY_HASH_SCRIPT = new DefaultRedisScript<>("""
+            local userId = redis.call('HGET', KEYS[1], 'u')
+            redis.call('ZREM', KEYS[2], ARGV[2])
+            if not userId then return 0 end
+            redis.call('DEL', KEYS[1])
+            local userKey = ARGV[1] .. userId
+            if redis.call('GET', userKey) == ARGV[2] then redis.call('DEL', userKey) end
+            return 1
+            """, Long.class);
+
     @Value("${jwt.refresh-token-expiration}")
     private Long refreshTokenExpiration;
 
     @Value("${app.security.cookie.salt}")
     private String cookieSalt;
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, String> replicaTemplate;
+    private final LegacyRefreshTokenStore legacyStore;
+    private final UserCache userCache;
     private final JwtUtil jwtUtil;
+    private final LiveStatsService liveStatsService;
 
-    private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
-    private static final String USER_REFRESH_TOKEN_PREFIX = "user_refresh:";
-    private static final String HASH_TO_TOKEN_PREFIX = "hash_to_token:";
-
-    public RefreshTokenService(RedisTemplate<String, Object> redisTemplate, UserRepository userRepository, JwtUtil jwtUtil) {
+    public RefreshTokenService(StringRedisTemplate redisTemplate,
+                               @Qualifier("replicaRedisTemplate") RedisTemplate<String, String> replicaTemplate,
+                               LegacyRefreshTokenStore legacyStore, UserCache userCache, JwtUtil jwtUtil,
+                               LiveStatsService liveStatsService) {
         this.redisTemplate = redisTemplate;
-        this.userRepository = userRepository;
+        this.replicaTemplate = replicaTemplate;
+        this.legacyStore = legacyStore;
+        this.userCache = userCache;
         this.jwtUtil = jwtUtil;
+        this.liveStatsService = liveStatsService;
+        liveStatsService.trackTotal("activeSessionsApprox", this::countActiveRefreshTokens);
     }
 
+    /**
+     * Starts a new session for the user, replacing any previous one.
+     * @return The session id to set as the refresh-token cookie.
+     */
     public String createRefreshToken(String email) {
-        User user = userRepository.findByEmail(email)
+        User user = userCache.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        deleteByUserId(user.getId());
+        legacyStore.deleteByUserId(user.getId(), cookieSalt);
+        deleteByUser(PREVIOUS_LAYOUT, user.getId());
 
         String refreshToken = jwtUtil.generateRefreshToken(user);
-        
-        Map<String, Object> tokenData = new HashMap<>();
-        tokenData.put("userId", user.getId());
-        tokenData.put("email", user.getEmail());
-        tokenData.put("name", user.getName());
-        tokenData.put("issuedAt", Instant.now().toString());
-        tokenData.put("expiryDate", Instant.now().plusMillis(refreshTokenExpiration).toString());
+        String hashedToken = DigestUtils.sha256Hex(refreshToken + cookieSalt);
+
+        Instant now = Instant.now();
+        storeSession(hashedToken, user.getId(), now.getEpochSecond(),
+                now.plusMillis(refreshTokenExpiration).getEpochSecond(), refreshTokenExpiration);
 
-        Duration expiration = Duration.ofMillis(refreshTokenExpiration);
-        redisTemplate.opsForValue().set(REFRESH_TOKEN_PREFIX + refreshToken, tokenData, expiration);
-        redisTemplate.opsForValue().set(USER_REFRESH_TOKEN_PREFIX + user.getId(), refreshToken, expiration);
-        
-        String hashedToken = org.apache.commons.codec.digest.DigestUtils.sha256Hex(refreshToken + cookieSalt);
-        redisTemplate.opsForValue().set(HASH_TO_TOKEN_PREFIX + hashedToken, refreshToken, expiration);
+        return sessionId(user.getId(), hashedToken);
+    }
 
-        return refreshToken;
+    public void deleteByUserId(Long userId) {
+        deleteByUser(layoutOf(userId), userId);
+        deleteByUser(PREVIOUS_LAYOUT, userId);
+        legacyStore.deleteByUserId(userId, cookieSalt);
     }
 
-    @SuppressWarnings("unchecked")
-    public Optional<Map<String, Object>> findByToken(String token) {
-        Object tokenData = redisTemplate.opsForValue().get(REFRESH_TOKEN_PREFIX + token);
-        if (tokenData instanceof Map) {
-            return Optional.of((Map<String, Object>) tokenData);
+    /**
+     * Deletes the sessions of a batch of users with one pipelined script call per bucket they fall in,
+     * one for the previous layout and one pipelined pass over the legacy keys.
+     * @return Number of sessions removed from the indexes.
+     */
+    public long deleteByUserIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Map<Layout, List<Long>> byLayout = userIds.stream().collect(Collectors.groupingBy(RefreshTokenService::layoutOf));
+        byLayout.put(PREVIOUS_LAYOUT, List.copyOf(userIds));
+        byte[] script = DELETE_BY_USERS_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byLayout.forEach((layout, ids) -> {
+                List<byte[]> keysAndArgs = new ArrayList<>(ids.size() + 2);
+                keysAndArgs.add(bytes(layout.expiryIndex()));
+                ids.forEach(userId -> keysAndArgs.add(bytes(layout.user(userId))));
+                keysAndArgs.add(bytes(layout.sessionPrefix()));
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, ids.size() + 1,
+                        keysAndArgs.toArray(new byte[0][]));
+            });
+            return null;
+        });
+        legacyStore.deleteByUserIds(userIds, cookieSalt);
+
+        long count = results.stream().mapToLong(result -> result instanceof Number n ? n.longValue() : 0).sum();
+        if (count > 0) {
+            liveStatsService.sessionsChanged(-count);
         }
-        return Optional.empty();
+        return count;
     }
 
-    public void deleteByUserId(Long userId) {
-        String existingToken = (String) redisTemplate.opsForValue().get(USER_REFRESH_TOKEN_PREFIX + userId);
-        if (existingToken != null) {
-            String hashedToken = org.apache.commons.codec.digest.DigestUtils.sha256Hex(existingToken + System.getenv("COOKIE_SALT"));
-            redisTemplate.delete(REFRESH_TOKEN_PREFIX + existingToken);
-            redisTemplate.delete(USER_REFRESH_TOKEN_PREFIX + userId);
-            redisTemplate.delete(HASH_TO_TOKEN_PREFIX + hashedToken);
-        }
-    }
-
-    public boolean deleteByHashedToken(String hashedToken) {
-        String originalToken = (String) redisTemplate.opsForValue().get(HASH_TO_TOKEN_PREFIX + hashedToken);
-        if (originalToken != null) {
-            Optional<Map<String, Object>> tokenDataOpt = findByToken(originalToken);
-            if (tokenDataOpt.isPresent()) {
-                Long userId = ((Number) tokenDataOpt.get().get("userId")).longValue();
-                redisTemplate.delete(USER_REFRESH_TOKEN_PREFIX + userId);
-            }
-            redisTemplate.delete(REFRESH_TOKEN_PREFIX + originalToken);
-            redisTemplate.delete(HASH_TO_TOKEN_PREFIX + hashedToken);
+    /**
+     * Deletes the session a cookie value (or an admin-supplied hash) refers to.
+     * @return false if there is no such session or the value is not a session id at all.
+     */
+    public boolean deleteByHashedToken(String sessionId) {
+        SessionRef ref = parseSessionId(sessionId);
+        if (ref == null) {
+            return false;
+        }
+        if (deleteByHash(ref.layout(), ref.hash())) {
             return true;
         }
-        return false;
+        return ref.layout() == PREVIOUS_LAYOUT && legacyStore.deleteByHashedToken(ref.hash());
     }
-    
-    @SuppressWarnings("unchecked")
-    public Map<String, Object> findValidTokenByHash(String hashedToken, CookieUtil cookieUtil) {
-        String originalToken = (String) redisTemplate.opsForValue().get(HASH_TO_TOKEN_PREFIX + hashedToken);
-        if (originalToken == null) return null;
-        
-        Object tokenData = redisTemplate.opsForValue().get(REFRESH_TOKEN_PREFIX + originalToken);
-        if (tokenData instanceof Map) {
-            Map<String, Object> data = (Map<String, Object>) tokenData;
-            Instant expiryDate = Instant.parse((String) data.get("expiryDate"));
-            if (expiryDate.isAfter(Instant.now())) {
-                return data;
-            } else {
-                deleteByHashedToken(hashedToken);
-            }
+
+    /**
+     * Resolves a cookie value to its session.
+     * @return The session data including {@code sessionId}, which differs from the cookie value when the session
+     *         was just moved out of an older layout; null if there is no valid session.
+     */
+    public Map<String, Object> findValidTokenByHash(String sessionId, CookieUtil cookieUtil) {
+        SessionRef ref = parseSessionId(sessionId);
+        if (ref == null) {
+            return null;
+        }
+        Optional<Map<String, Object>> session = ref.layout() == PREVIOUS_LAYOUT
+                ? migrateSession(ref.hash())
+                : readSession(redisTemplate, ref.layout(), ref.hash());
+        if (session.isEmpty()) {
+            return null;
         }
+
+        Map<String, Object> tokenData = session.get();
+        Instant expiryDate = Instant.parse((String) tokenData.get("expiryDate"));
+        if (expiryDate.isAfter(Instant.now())) {
+            tokenData.put("sessionId", sessionId(((Number) tokenData.get("userId")).longValue(), ref.hash()));
+            return tokenData;
+        }
+        deleteByHash(layoutOf((Long) tokenData.get("userId")), ref.hash());
         return null;
     }
 
+    /**
+     * Lists a user's sessions for the admin view. Reads from a replica when one is available.
+     */
     public List<Map<String, Object>> findSessionsByUserId(Long userId) {
-        String token = (String) redisTemplate.opsForValue().get(USER_REFRESH_TOKEN_PREFIX + userId);
-        if (token == null) {
-            return Collections.emptyList();
+        Layout layout = layoutOf(userId);
+        String hashedToken = replicaTemplate.opsForValue().get(layout.user(userId));
+        String tokenHash = hashedToken != null ? sessionId(userId, hashedToken) : null;
+        if (hashedToken == null) {
+            layout = PREVIOUS_LAYOUT;
+            hashedToken = replicaTemplate.opsForValue().get(layout.user(userId));
+            tokenHash = hashedToken;
         }
-
-        Optional<Map<String, Object>> tokenDataOpt = findByToken(token);
-        if (tokenDataOpt.isPresent()) {
-            Map<String, Object> tokenData = tokenDataOpt.get();
-            Map<String, Object> sessionInfo = new HashMap<>();
-            String hashedToken = org.apache.commons.codec.digest.DigestUtils.sha256Hex(token + System.getenv("COOKIE_SALT"));
-            
-            sessionInfo.put("tokenHash", hashedToken);
-            sessionInfo.put("issuedAt", tokenData.get("issuedAt"));
-            sessionInfo.put("expiryDate", tokenData.get("expiryDate"));
-            
-            List<Map<String, Object>> sessions = new ArrayList<>();
-            sessions.add(sessionInfo);
-            return sessions;
+        if (hashedToken == null) {
+            return legacyStore.findSessionsByUserId(userId, cookieSalt);
         }
-        return Collections.emptyList();
+
+        String listedHash = tokenHash;
+        return readSession(replicaTemplate, layout, hashedToken)
+                .map(tokenData -> {
+                    Map<String, Object> sessionInfo = new HashMap<>();
+                    sessionInfo.put("tokenHash", listedHash);
+                    sessionInfo.put("issuedAt", tokenData.get("issuedAt"));
+                    sessionInfo.put("expiryDate", tokenData.get("expiryDate"));
+                    return Collections.singletonList(sessionInfo);
+                })
+                .orElse(Collections.emptyList());
     }
 
+    /**
+     * Returns the number of indexed sessions: one pipelined ZCARD per bucket plus the previous layout's index.
+     * Expired members are removed by {@link #pruneExpiredSessions()}, so the count may lag by one prune interval.
+     */
     public long countActiveRefreshTokens() {
-        Set<String> keys = redisTemplate.keys(REFRESH_TOKEN_PREFIX + "*");
-        return keys != null ? keys.size() : 0;
+        List<Object> counts = replicaTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Layout layout : allLayouts()) {
+                connection.zSetCommands().zCard(bytes(layout.expiryIndex()));
+            }
+            return null;
+        });
+        return counts.stream().mapToLong(count -> count instanceof Number n ? n.longValue() : 0).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.index-prune-interval:60000}")
+    public void pruneExpiredSessions() {
+        try {
+            long now = Instant.now().getEpochSecond();
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Layout layout : allLayouts()) {
+                    connection.zSetCommands().zRemRangeByScore(bytes(layout.expiryIndex()), Double.NEGATIVE_INFINITY, now);
+                }
+                return null;
+            });
+            long removed = results.stream().mapToLong(result -> result instanceof Number n ? n.longValue() : 0).sum();
+            if (removed > 0) {
+                liveStatsService.sessionsChanged(-removed);
+                logger.debug("[RefreshToken] Pruned {} expired sessions from index", removed);
+            }
+        } catch (Exception e) {
+            logger.warn("[RefreshToken] Failed to prune session index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return Every expiry index, bucketed and previous.
+     */
+    static List<Layout> allLayouts() {
+        List<Layout> layouts = new ArrayList<>(BUCKETS);
+        layouts.add(PREVIOUS_LAYOUT);
+        return layouts;
+    }
+
+    static Layout layoutOf(Long userId) {
+        return BUCKETS.get((int) Math.floorMod(userId, (long) SESSION_BUCKETS));
+    }
+
+    static String sessionId(Long userId, String hashedToken) {
+        return Math.floorMod(userId, (long) SESSION_BUCKETS) + "." + hashedToken;
+    }
+
+    /**
+     * @return The layout and hash a session id refers to: {@code <bucket>.<hash>} for current sessions, a bare
+     *         hash for the older layouts; null for anything else (such as a JWT passed to the admin endpoint).
+     */
+    private static SessionRef parseSessionId(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return null;
+        }
+        int dot = sessionId.indexOf('.');
+        if (dot < 0) {
+            return new SessionRef(PREVIOUS_LAYOUT, sessionId);
+        }
+        String bucket = sessionId.substring(0, dot);
+        String hash = sessionId.substring(dot + 1);
+        if (bucket.isEmpty() || bucket.length() > 3 || !bucket.chars().allMatch(Character::isDigit)
+                || hash.isEmpty() || hash.indexOf('.') >= 0) {
+            return null;
+        }
+        int index = Integer.parseInt(bucket);
+        return index < SESSION_BUCKETS ? new SessionRef(BUCKETS.get(index), hash) : null;
+    }
+
+    private void deleteByUser(Layout layout, Long userId) {
+        Long deleted = redisTemplate.execute(DELETE_BY_USER_SCRIPT,
+                List.of(layout.user(userId), layout.expiryIndex()), layout.sessionPrefix());
+        if (deleted != null && deleted > 0) {
+            liveStatsService.sessionsChanged(-deleted);
+        }
+    }
+
+    private boolean deleteByHash(Layout layout, String hashedToken) {
+        Long deleted = redisTemplate.execute(DELETE_BY_HASH_SCRIPT,
+                List.of(layout.session(hashedToken), layout.expiryIndex()), layout.userPrefix(), hashedToken);
+        if (deleted != null && deleted > 0) {
+            liveStatsService.sessionsChanged(-deleted);
+            return true;
+        }
+        return false;
+    }
+
+    private void storeSession(String hashedToken, Long userId, long issuedAt, long expiresAt, long ttlMillis) {
+        Layout layout = layoutOf(userId);
+        Long delta = redisTemplate.execute(CREATE_SESSION_SCRIPT,
+                Arrays.asList(layout.session(hashedToken), layout.user(userId), layout.expiryIndex()),
+                layout.sessionPrefix(), String.valueOf(userId), String.valueOf(issuedAt), String.valueOf(expiresAt),
+                String.valueOf(ttlMillis), hashedToken);
+        if (delta != null && delta != 0) {
+            liveStatsService.sessionsChanged(delta);
+        }
+    }
+
+    private Optional<Map<String, Object>> readSession(RedisTemplate<String, String> template, Layout layout,
+                                                      String hashedToken) {
+        List<Object> fields = template.opsForHash().multiGet(layout.session(hashedToken),
+                List.of(FIELD_USER_ID, FIELD_ISSUED_AT, FIELD_EXPIRES_AT));
+        if (fields.get(0) == null) {
+            return Optional.empty();
+        }
+
+        Map<String, Object> tokenData = new HashMap<>();
+        tokenData.put("userId", Long.parseLong((String) fields.get(0)));
+        tokenData.put("issuedAt", Instant.ofEpochSecond(Long.parseLong((String) fields.get(1))).toString());
+        tokenData.put("expiryDate", Instant.ofEpochSecond(Long.parseLong((String) fields.get(2))).toString());
+        return Optional.of(tokenData);
+    }
+
+    /**
+     * Moves a session addressed by a bare hash from the previous {@code {rt}} layout, or failing that from the
+     * legacy JSON layout, into its bucket, keeping its hash and remaining lifetime. When two refreshes race,
+     * the one that loses the delete finds the session already in its bucket.
+     */
+    private Optional<Map<String, Object>> migrateSession(String hashedToken) {
+        Optional<Map<String, Object>> previous = readSession(redisTemplate, PREVIOUS_LAYOUT, hashedToken);
+        if (previous.isPresent()) {
+            Map<String, Object> tokenData = previous.get();
+            Long userId = (Long) tokenData.get("userId");
+            if (deleteByHash(PREVIOUS_LAYOUT, hashedToken)) {
+                moveIntoBucket(hashedToken, userId, tokenData);
+            }
+            return readSession(redisTemplate, layoutOf(userId), hashedToken);
+        }
+
+        Optional<Map<String, Object>> legacy = legacyStore.takeByHashedToken(hashedToken);
+        if (legacy.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Object> tokenData = legacy.get();
+        Long userId = ((Number) tokenData.get("userId")).longValue();
+        moveIntoBucket(hashedToken, userId, tokenData);
+        return readSession(redisTemplate, layoutOf(userId), hashedToken);
+    }
+
+    private void moveIntoBucket(String hashedToken, Long userId, Map<String, Object> tokenData) {
+        Instant issuedAt = Instant.parse((String) tokenData.get("issuedAt"));
+        Instant expiryDate = Instant.parse((String) tokenData.get("expiryDate"));
+        long ttlMillis = expiryDate.toEpochMilli() - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        storeSession(hashedToken, userId, issuedAt.getEpochSecond(), expiryDate.getEpochSecond(), ttlMillis);
+        logger.info("[RefreshToken] Moved session for user {} into bucket {}", userId, layoutOf(userId).tag());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record SessionRef(Layout layout, String hash) {
     }
 }
@@ -0,0 +1,98 @@
+package com.dietdiary.auth.service;
+
+import com.dietdiary.auth.dto.UserResponse;
+import com.dietdiary.auth.entity.UserRole;
+import com.dietdiary.auth.repository.UserRepository;
+import org.apache.commons.codec.digest.MurmurHash3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over registered emails.
+ * A negative answer means the email is definitely not registered (as of this instance's view), so registration
+ * can skip the existence query. Until the filter has been warmed from the database every email is reported as
+ * possibly present. Emails registered through another instance are not added here; the insert-if-absent
+ * statement in {@link AuthService#register} still rejects those.
+ */
+@Component
+public class RegisteredEmailFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+    private static final int WARMUP_PAGE_SIZE = 5000;
+
+    private final UserRepository userRepository;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+                                 @Value("${app.registration.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${app.registration.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        long afterId = 0L;
+        List<UserResponse> page;
+        do {
+            page = userRepository.findSummaryPage(afterId, EnumSet.allOf(UserRole.class), "%", Limit.of(WARMUP_PAGE_SIZE));
+            for (UserResponse user : page) {
+                put(user.getEmail());
+            }
+            count += page.size();
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == WARMUP_PAGE_SIZE);
+        ready = true;
+        logger.info("[EmailFilter] Warmed with {} emails in {}ms ({} bits, {} hashes)",
+                count, System.currentTimeMillis() - start, bitCount, hashCount);
+    }
+
+    public boolean mightContain(String email) {
+        if (!ready) {
+            return true;
+        }
+        long[] hash = MurmurHash3.hash128x64(email.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String email) {
+        long[] hash = MurmurHash3.hash128x64(email.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash[0] + i * hash[1], bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(index)) & mask) == 0) {
+                if (bits.compareAndSet(index, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+}
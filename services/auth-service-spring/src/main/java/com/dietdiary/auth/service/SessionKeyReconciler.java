@@ -0,0 +1,485 @@
+package com.dietdiary.auth.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Garbage-collects refresh-session keys whose counterpart is gone.
+ * <p>
+ * Walks each session key family with a rate-limited SCAN ({@code app.session.reconciler.keys-per-second}),
+ * checks every batch with pipelined reads and deletes the orphans:
+ * <ul>
+ *   <li>legacy {@code hash_to_token:} and {@code user_refresh:} entries whose {@code refresh_token:} is gone,
+ *       and {@code refresh_token:} entries that nothing points to any more</li>
+ *   <li>{@code {rt:<bucket>}:u:} pointers to a missing session, {@code {rt:<bucket>}:s:} sessions their user
+ *       no longer points to, and expiry index members without a session key; the previous single-tag
+ *       {@code {rt}} layout is covered by the same patterns</li>
+ * </ul>
+ * On a Redis Cluster each primary is scanned in turn. In dry-run mode nothing is deleted; the report still
+ * lists the orphans found and their size ({@code MEMORY USAGE}), so the leak can be sized first.
+ */
+@Service
+public class SessionKeyReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionKeyReconciler.class);
+    private static final String LOCK_KEY = "session-reconciler:lock";
+    private static final Duration LOCK_TTL = Duration.ofHours(1);
+    // Matches both {rt}:... and {rt:<bucket>}:...
+    private static final String SESSION_POINTER_PATTERN = "{rt*:u:*";
+    private static final String SESSION_PATTERN = "{rt*:s:*";
+
+    /**
+     * Deletes a pointer only if it still holds the value that was checked. KEYS[1]=key; ARGV[1]=expected value.
+     */
+    private static final RedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, Object> legacyTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int batchSize;
+    private final int keysPerSecond;
+    private final boolean scheduledDryRun;
+    private volatile Map<String, Object> lastReport;
+
+    @Value("${app.security.cookie.salt}")
+    private String cookieSalt;
+
+    public SessionKeyReconciler(StringRedisTemplate redisTemplate, RedisTemplate<String, Object> legacyTemplate,
+                                @Value("${app.session.reconciler.batch-size:200}") int batchSize,
+                                @Value("${app.session.reconciler.keys-per-second:1000}") int keysPerSecond,
+                                @Value("${app.session.reconciler.dry-run:true}") boolean scheduledDryRun) {
+        this.redisTemplate = redisTemplate;
+        this.legacyTemplate = legacyTemplate;
+        this.batchSize = batchSize;
+        this.keysPerSecond = keysPerSecond;
+        this.scheduledDryRun = scheduledDryRun;
+    }
+
+    /**
+     * Starts a pass on one instance; the pass runs on its own thread so the shared scheduler is not held up
+     * by the rate limiting.
+     */
+    @Scheduled(cron = "${app.session.reconciler.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", LOCK_TTL))) {
+            logger.debug("[SessionReconciler] Another instance holds the lock. Skipping.");
+            return;
+        }
+        if (!startAsync(scheduledDryRun, () -> redisTemplate.delete(LOCK_KEY))) {
+            redisTemplate.delete(LOCK_KEY);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Starts a pass on the reconciler thread. The running flag is claimed here, so of two concurrent callers
+     * exactly one gets true and the other can report the conflict.
+     * @return false if a pass is already running on this instance.
+     */
+    public boolean startAsync(boolean dryRun) {
+        return startAsync(dryRun, () -> { });
+    }
+
+    private boolean startAsync(boolean dryRun, Runnable onFinish) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    reconcile(dryRun);
+                } catch (Exception e) {
+                    logger.error("[SessionReconciler] Pass failed: {}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                    onFinish.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs one full pass. Only called on the reconciler thread, with the running flag held.
+     */
+    private void reconcile(boolean dryRun) {
+        long start = System.currentTimeMillis();
+        Map<String, FamilyReport> reports = new LinkedHashMap<>();
+        reports.put("hash_to_token", reconcileLegacyPointers(LegacyRefreshTokenStore.HASH_TO_TOKEN_PREFIX, dryRun));
+        reports.put("user_refresh", reconcileLegacyPointers(LegacyRefreshTokenStore.USER_REFRESH_TOKEN_PREFIX, dryRun));
+        reports.put("refresh_token", reconcileLegacyTokens(dryRun));
+        reports.put("session_pointer", reconcileSessionPointers(dryRun));
+        reports.put("session", reconcileSessions(dryRun));
+        reports.put("session_index", reconcileSessionIndex(dryRun));
+
+        long orphans = 0;
+        long bytes = 0;
+        Map<String, Object> families = new LinkedHashMap<>();
+        for (Map.Entry<String, FamilyReport> entry : reports.entrySet()) {
+            orphans += entry.getValue().orphaned;
+            bytes += entry.getValue().bytes;
+            families.put(entry.getKey(), entry.getValue().toMap());
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("dryRun", dryRun);
+        report.put("startedAt", start);
+        report.put("elapsedMs", System.currentTimeMillis() - start);
+        report.put("orphanedKeys", orphans);
+        report.put("reclaimableBytes", bytes);
+        report.put("families", families);
+        lastReport = report;
+        logger.info("[SessionReconciler] Pass finished (dryRun: {}) - orphans: {}, bytes: {}, elapsed: {}ms",
+                dryRun, orphans, bytes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * {@code hash_to_token:} and {@code user_refresh:} both hold a raw token; they are orphaned once
+     * {@code refresh_token:<token>} is gone.
+     */
+    private FamilyReport reconcileLegacyPointers(String prefix, boolean dryRun) {
+        FamilyReport report = new FamilyReport();
+        scan(prefix + "*", report, keys -> {
+            List<Object> tokens = pipelinedGets(keys);
+            List<String> targets = new ArrayList<>(keys.size());
+            for (Object token : tokens) {
+                targets.add(token instanceof String value ? LegacyRefreshTokenStore.REFRESH_TOKEN_PREFIX + value : null);
+            }
+            List<Boolean> exists = pipelinedExists(targets);
+            List<String> orphans = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (tokens.get(i) != null && !exists.get(i)) {
+                    orphans.add(keys.get(i));
+                }
+            }
+            return orphans;
+        }, dryRun, orphans -> legacyTemplate.delete(orphans));
+        return report;
+    }
+
+    /**
+     * A legacy {@code refresh_token:<token>} is orphaned when neither its user pointer nor its hash pointer refers to it.
+     */
+    private FamilyReport reconcileLegacyTokens(boolean dryRun) {
+        FamilyReport report = new FamilyReport();
+        String prefix = LegacyRefreshTokenStore.REFRESH_TOKEN_PREFIX;
+        scan(prefix + "*", report, keys -> {
+            List<Object> values = pipelinedGets(keys);
+            List<String> userPointers = new ArrayList<>(keys.size());
+            List<String> hashPointers = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                String token = keys.get(i).substring(prefix.length());
+                Object userId = values.get(i) instanceof Map<?, ?> data ? data.get("userId") : null;
+                userPointers.add(userId != null ? LegacyRefreshTokenStore.USER_REFRESH_TOKEN_PREFIX + userId : null);
+                hashPointers.add(LegacyRefreshTokenStore.HASH_TO_TOKEN_PREFIX + DigestUtils.sha256Hex(token + cookieSalt));
+            }
+            List<Object> pointed = pipelinedGets(userPointers);
+            List<Boolean> hashed = pipelinedExists(hashPointers);
+            List<String> orphans = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                String token = keys.get(i).substring(prefix.length());
+                if (values.get(i) != null && !token.equals(pointed.get(i)) && !hashed.get(i)) {
+                    orphans.add(keys.get(i));
+                }
+            }
+            return orphans;
+        }, dryRun, orphans -> legacyTemplate.delete(orphans));
+        return report;
+    }
+
+    private FamilyReport reconcileSessionPointers(boolean dryRun) {
+        FamilyReport report = new FamilyReport();
+        Map<String, String> observed = new LinkedHashMap<>();
+        scan(SESSION_POINTER_PATTERN, report, keys -> {
+            List<String> hashes = multiGet(keys);
+            List<String> sessions = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                String hash = hashes.get(i);
+                sessions.add(hash != null ? RefreshTokenService.Layout.of(keys.get(i)).session(hash) : null);
+            }
+            List<Boolean> exists = pipelinedExists(sessions);
+            List<String> orphans = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (hashes.get(i) != null && !exists.get(i)) {
+                    orphans.add(keys.get(i));
+                    observed.put(keys.get(i), hashes.get(i));
+                }
+            }
+            return orphans;
+        }, dryRun, orphans -> {
+            // A concurrent login may have repointed the key since it was checked.
+            orphans.forEach(key -> redisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, List.of(key), observed.get(key)));
+            observed.clear();
+        });
+        return report;
+    }
+
+    private FamilyReport reconcileSessions(boolean dryRun) {
+        FamilyReport report = new FamilyReport();
+        scan(SESSION_PATTERN, report, keys -> {
+            List<Object> userIds = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    keys.forEach(key -> ops.opsForHash().get(key, "u"));
+                    return null;
+                }
+            });
+            List<String> pointers = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                Object userId = userIds.get(i);
+                pointers.add(userId != null
+                        ? RefreshTokenService.Layout.of(keys.get(i)).userPrefix() + userId : null);
+            }
+            List<String> pointed = multiGet(pointers);
+            List<String> orphans = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (userIds.get(i) != null && !hashOf(keys.get(i)).equals(pointed.get(i))) {
+                    orphans.add(keys.get(i));
+                }
+            }
+            return orphans;
+        }, dryRun, orphans -> orphans.forEach(key -> {
+            RefreshTokenService.Layout layout = RefreshTokenService.Layout.of(key);
+            redisTemplate.delete(key);
+            redisTemplate.opsForZSet().remove(layout.expiryIndex(), hashOf(key));
+        }));
+        return report;
+    }
+
+    /**
+     * Members of the expiry indexes without a session key. Sizes are reported per member, not per key.
+     */
+    private FamilyReport reconcileSessionIndex(boolean dryRun) {
+        FamilyReport report = new FamilyReport();
+        for (RefreshTokenService.Layout layout : RefreshTokenService.allLayouts()) {
+            reconcileSessionIndex(layout, report, dryRun);
+        }
+        return report;
+    }
+
+    private void reconcileSessionIndex(RefreshTokenService.Layout layout, FamilyReport report, boolean dryRun) {
+        String index = layout.expiryIndex();
+        ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Cursor<ZSetOperations.TypedTuple<String>> cursor = redisTemplate.opsForZSet().scan(index, options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next().getValue());
+                if (batch.size() >= batchSize || !cursor.hasNext()) {
+                    long batchStart = System.currentTimeMillis();
+                    report.scanned += batch.size();
+                    List<String> sessions = batch.stream().map(layout::session).toList();
+                    List<Boolean> exists = pipelinedExists(sessions);
+                    List<Object> orphans = new ArrayList<>();
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (!exists.get(i)) {
+                            orphans.add(batch.get(i));
+                            report.bytes += batch.get(i).getBytes(StandardCharsets.UTF_8).length;
+                        }
+                    }
+                    report.orphaned += orphans.size();
+                    if (!dryRun && !orphans.isEmpty()) {
+                        redisTemplate.opsForZSet().remove(index, orphans.toArray());
+                    }
+                    batch.clear();
+                    throttle(sessions.size(), batchStart);
+                }
+            }
+        }
+    }
+
+    private static String hashOf(String sessionKey) {
+        return sessionKey.substring(RefreshTokenService.Layout.of(sessionKey).sessionPrefix().length());
+    }
+
+    private void scan(String pattern, FamilyReport report, Function<List<String>, List<String>> findOrphans,
+                      boolean dryRun, Consumer<List<String>> deleteOrphans) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        try (RedisConnection connection = redisTemplate.getRequiredConnectionFactory().getConnection()) {
+            if (connection instanceof RedisClusterConnection cluster) {
+                // SCAN only walks the node it runs on, so visit every primary.
+                for (RedisClusterNode node : cluster.clusterGetNodes()) {
+                    if (node.isMaster()) {
+                        try (Cursor<byte[]> cursor = cluster.scan(node, options)) {
+                            drain(cursor, report, findOrphans, dryRun, deleteOrphans);
+                        }
+                    }
+                }
+            } else {
+                try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                    drain(cursor, report, findOrphans, dryRun, deleteOrphans);
+                }
+            }
+        }
+    }
+
+    private void drain(Cursor<byte[]> cursor, FamilyReport report, Function<List<String>, List<String>> findOrphans,
+                       boolean dryRun, Consumer<List<String>> deleteOrphans) {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (cursor.hasNext()) {
+            batch.add(new String(cursor.next(), StandardCharsets.UTF_8));
+            if (batch.size() >= batchSize || !cursor.hasNext()) {
+                long batchStart = System.currentTimeMillis();
+                report.scanned += batch.size();
+                List<String> orphans = findOrphans.apply(batch);
+                if (!orphans.isEmpty()) {
+                    report.orphaned += orphans.size();
+                    report.bytes += memoryUsage(orphans);
+                    if (!dryRun) {
+                        deleteOrphans.accept(orphans);
+                    }
+                }
+                int checked = batch.size();
+                batch = new ArrayList<>(batchSize);
+                throttle(checked, batchStart);
+            }
+        }
+    }
+
+    private void throttle(int keys, long batchStart) {
+        long budgetMillis = keys * 1000L / Math.max(1, keysPerSecond);
+        long sleep = budgetMillis - (System.currentTimeMillis() - batchStart);
+        if (sleep > 0) {
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long memoryUsage(List<String> keys) {
+        List<Object> sizes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        long total = 0;
+        for (Object size : sizes) {
+            if (size instanceof Number number) {
+                total += number.longValue();
+            }
+        }
+        return total;
+    }
+
+    private List<Object> pipelinedGets(List<String> keys) {
+        List<Object> results = legacyTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                keys.forEach(key -> {
+                    if (key != null) {
+                        ops.opsForValue().get(key);
+                    }
+                });
+                return null;
+            }
+        });
+        return alignNulls(keys, results);
+    }
+
+    private List<String> multiGet(List<String> keys) {
+        List<String> present = keys.stream().filter(Objects::nonNull).toList();
+        List<String> values = present.isEmpty() ? List.of() : redisTemplate.opsForValue().multiGet(present);
+        List<String> aligned = new ArrayList<>(keys.size());
+        int next = 0;
+        for (String key : keys) {
+            aligned.add(key != null ? values.get(next++) : null);
+        }
+        return aligned;
+    }
+
+    private List<Boolean> pipelinedExists(List<String> keys) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                if (key != null) {
+                    connection.keyCommands().exists(key.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return null;
+        });
+        List<Boolean> aligned = new ArrayList<>(keys.size());
+        int next = 0;
+        for (String key : keys) {
+            aligned.add(key != null && Boolean.TRUE.equals(results.get(next++)));
+        }
+        return aligned;
+    }
+
+    private static List<Object> alignNulls(List<String> keys, List<Object> results) {
+        List<Object> aligned = new ArrayList<>(keys.size());
+        int next = 0;
+        for (String key : keys) {
+            aligned.add(key != null ? results.get(next++) : null);
+        }
+        return aligned;
+    }
+
+    private static final class FamilyReport {
+        private long scanned;
+        private long orphaned;
+        private long bytes;
+
+        private Map<String, Object> toMap() {
+            return Map.of("scanned", scanned, "orphaned", orphaned, "bytes", bytes);
+        }
+    }
+}
@@ -1,34 +1,72 @@
 package com.dietdiary.auth.service;
 
+import com.dietdiary.auth.security.AuthenticationCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.Cursor;
-import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Objects;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Manages JWT token blacklisting.
  * Provides O(1) performance for token invalidation during forced logout.
+ * User-wide invalidations are stored as epoch seconds in hashes {@code jwt:user_epoch:<window>}, one per
+ * access-token lifetime, so each revoked user costs a numeric hash field rather than a key.
+ * The per-request checks read through {@code replicaRedisTemplate}.
  */
 @Service
 public class TokenBlacklistService {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
     private static final String BLACKLIST_PREFIX = "jwt:blacklist:";
-    private static final String USER_INVALIDATE_PREFIX = "jwt:user_invalidate:";
+    // Indexes live outside the jwt:* key families so a key-family scan never meets a sorted set.
+    private static final String BLACKLIST_EXPIRY_INDEX = "idx:jwt:blacklist";
+    private static final String LEGACY_BLACKLIST_EXPIRY_INDEX = "jwt:blacklist:exp";
+    private static final String USER_EPOCH_PREFIX = "jwt:user_epoch:";
+    // Users newly invalidated while a window was current, and the one-per-window rollover claim
+    private static final String USER_EPOCH_ADDED_PREFIX = "idx:jwt:user_epoch:added:";
+    private static final String USER_EPOCH_ROLLOVER_PREFIX = "idx:jwt:user_epoch:rolled:";
+    private static final String LEGACY_USER_INVALIDATE_PREFIX = "jwt:user_invalidate:";
+    private static final String LEGACY_USER_INVALIDATE_INDEX = "jwt:user_invalidate:exp";
+    private static final int EPOCH_WRITE_BATCH = 1000;
     
-    private final RedisTemplate<String, String> redisTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, String> replicaTemplate;
+    private final ForceLogoutAuditService auditService;
+    private final AuthenticationCache authenticationCache;
+    private final LiveStatsService liveStatsService;
+    private final long accessTokenLifetimeMs;
 
-    public TokenBlacklistService(RedisTemplate<String, String> redisTemplate) {
+    public TokenBlacklistService(StringRedisTemplate redisTemplate,
+                                 @Qualifier("replicaRedisTemplate") RedisTemplate<String, String> replicaTemplate,
+                                 ForceLogoutAuditService auditService,
+                                 AuthenticationCache authenticationCache, LiveStatsService liveStatsService,
+                                 @Value("${jwt.access-token-expiration}") long accessTokenLifetimeMs) {
         this.redisTemplate = redisTemplate;
+        this.replicaTemplate = replicaTemplate;
+        this.auditService = auditService;
+        this.authenticationCache = authenticationCache;
+        this.liveStatsService = liveStatsService;
+        this.accessTokenLifetimeMs = accessTokenLifetimeMs;
+        liveStatsService.trackTotal("blacklistedTokens", this::totalRevocations);
     }
 
     /**
@@ -47,6 +85,10 @@ public class TokenBlacklistService {
         if (ttlSeconds > 0) {
             String key = BLACKLIST_PREFIX + jwtId;
             redisTemplate.opsForValue().set(key, "blacklisted", Duration.ofSeconds(ttlSeconds));
+            if (Boolean.TRUE.equals(redisTemplate.opsForZSet().add(BLACKLIST_EXPIRY_INDEX, jwtId, expirationTime.getTime()))) {
+                liveStatsService.revocationsChanged(1);
+            }
+            authenticationCache.evictByJwtId(jwtId);
             logger.info("[TokenBlacklist] Token blacklisted - jwtId: {}, TTL: {}s", jwtId, ttlSeconds);
         } else {
             logger.debug("[TokenBlacklist] Token already expired - jwtId: {}", jwtId);
@@ -64,29 +106,86 @@ public class TokenBlacklistService {
     
     /**
      * Blacklists all tokens for a user, including admin info.
+     * The epoch goes to Redis; who did it and why goes to the audit log.
      * @param userId Target User ID
      * @param currentTime Current time
      * @param adminUserId Admin User ID
      * @param adminEmail Admin Email
      */
     public void blacklistAllUserTokens(Long userId, Date currentTime, Long adminUserId, String adminEmail) {
-        String userKey = USER_INVALIDATE_PREFIX + userId;
         long timestamp = currentTime.getTime();
-        
-        // Store metadata as a JSON string
-        String metadata = String.format(
-            "{\"timestamp\":%d,\"adminUserId\":%s,\"adminEmail\":\"%s\",\"reason\":\"FORCE_LOGOUT\"}", 
-            timestamp, 
-            adminUserId != null ? adminUserId : "null",
-            adminEmail != null ? adminEmail : "system"
-        );
-        
-        // Set TTL for 24 hours (longer than max access token expiration)
-        redisTemplate.opsForValue().set(userKey, metadata, Duration.ofHours(24));
+        long added = writeEpochs(List.of(userId), timestamp);
+        if (added > 0) {
+            liveStatsService.revocationsChanged(added);
+        }
+        authenticationCache.evictByUserId(userId);
+        auditService.record(userId, currentTime, adminUserId, adminEmail);
         logger.info("[TokenBlacklist] All tokens invalidated for user: {} by admin: {} ({}) at {}", 
                    userId, adminUserId, adminEmail, timestamp);
     }
 
+    /**
+     * Invalidates all tokens of many users at once: the epochs are written in one pipeline
+     * and the audit rows in one INSERT.
+     * @return Number of users that were not already invalidated.
+     */
+    public long blacklistUsers(Collection<Long> userIds, Date currentTime, Long adminUserId, String adminEmail) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        long newlyInvalidated = writeEpochs(userIds, currentTime.getTime());
+        if (newlyInvalidated > 0) {
+            liveStatsService.revocationsChanged(newlyInvalidated);
+        }
+
+        authenticationCache.evictByUserIds(userIds);
+        auditService.recordAll(userIds, currentTime, adminUserId, adminEmail);
+        logger.info("[TokenBlacklist] Bulk invalidated tokens for {} users by admin: {} ({})",
+                userIds.size(), adminUserId, adminEmail);
+        return newlyInvalidated;
+    }
+
+    /**
+     * Stores the revocation epoch (in whole seconds, rounded up) as a field of the current and the next window hash.
+     * A token issued before the revocation expires within one lifetime, so it can only be presented while one
+     * of those two windows is current. Each hash expires once its window can no longer be read.
+     * @return Number of users added to the current window.
+     */
+    private long writeEpochs(Collection<Long> userIds, long timestamp) {
+        long window = windowOf(timestamp);
+        String currentKey = USER_EPOCH_PREFIX + window;
+        String nextKey = USER_EPOCH_PREFIX + (window + 1);
+        String epoch = String.valueOf(epochSecondsCeil(timestamp));
+        long before = hLen(currentKey);
+
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += EPOCH_WRITE_BATCH) {
+            Map<String, String> fields = new HashMap<>();
+            for (Long userId : ids.subList(from, Math.min(from + EPOCH_WRITE_BATCH, ids.size()))) {
+                fields.put(String.valueOf(userId), epoch);
+            }
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.opsForHash().putAll(currentKey, fields);
+                    ops.opsForHash().putAll(nextKey, fields);
+                    return null;
+                }
+            });
+        }
+        redisTemplate.expireAt(currentKey, Instant.ofEpochMilli((window + 2) * accessTokenLifetimeMs));
+        redisTemplate.expireAt(nextKey, Instant.ofEpochMilli((window + 3) * accessTokenLifetimeMs));
+        long added = Math.max(0, hLen(currentKey) - before);
+        if (added > 0) {
+            String addedKey = USER_EPOCH_ADDED_PREFIX + window;
+            redisTemplate.opsForValue().increment(addedKey, added);
+            redisTemplate.expireAt(addedKey, Instant.ofEpochMilli((window + 2) * accessTokenLifetimeMs));
+        }
+        return added;
+    }
+
     /**
      * Checks if a token is blacklisted (O(1) performance).
      * @param jwtId JWT ID
@@ -96,12 +195,13 @@ public class TokenBlacklistService {
         if (jwtId == null) return false;
         
         String key = BLACKLIST_PREFIX + jwtId;
-        Boolean exists = redisTemplate.hasKey(key);
+        Boolean exists = replicaTemplate.hasKey(key);
         return Boolean.TRUE.equals(exists);
     }
 
     /**
-     * Checks if a user's tokens have been invalidated.
+     * Checks if a user's tokens have been invalidated (one HGET on the current window).
+     * JWT {@code iat} has second precision, so the comparison is done in whole seconds.
      * @param userId User ID
      * @param tokenIssuedAt Token issuance time
      * @return true if invalidated
@@ -109,33 +209,92 @@ public class TokenBlacklistService {
     public boolean isUserTokenInvalidated(Long userId, Date tokenIssuedAt) {
         if (userId == null || tokenIssuedAt == null) return false;
         
-        String userKey = USER_INVALIDATE_PREFIX + userId;
-        String invalidateData = redisTemplate.opsForValue().get(userKey);
-        
-        if (invalidateData == null) return false;
+        Object epoch = replicaTemplate.opsForHash()
+                .get(USER_EPOCH_PREFIX + windowOf(System.currentTimeMillis()), String.valueOf(userId));
+        if (epoch == null) return false;
         
         try {
-            long invalidateTimestamp;
-            
-            if (invalidateData.startsWith("{")) {
-                // New JSON format
-                String timestampStr = extractTimestampFromJson(invalidateData);
-                invalidateTimestamp = Long.parseLong(timestampStr);
-            } else {
-                // Legacy format (numeric only)
-                invalidateTimestamp = Long.parseLong(invalidateData);
+            return tokenIssuedAt.getTime() / 1000 < Long.parseLong((String) epoch);
+        } catch (NumberFormatException e) {
+            logger.warn("[TokenBlacklist] Invalid epoch for user: {} - {}", userId, epoch);
+            return false;
+        }
+    }
+
+    /**
+     * Cleans up blacklist entries for a specific user.
+     * @param userId User ID
+     */
+    public void cleanupUserBlacklist(Long userId) {
+        long window = windowOf(System.currentTimeMillis());
+        String field = String.valueOf(userId);
+        Long removed = redisTemplate.opsForHash().delete(USER_EPOCH_PREFIX + window, field);
+        redisTemplate.opsForHash().delete(USER_EPOCH_PREFIX + (window + 1), field);
+        if (removed != null && removed > 0) {
+            liveStatsService.revocationsChanged(-removed);
+        }
+        logger.info("[TokenBlacklist] Cleaned up blacklist for user: {}", userId);
+    }
+
+    /**
+     * Moves user invalidations written in the old JSON-per-user layout into the epoch hashes, then deletes them.
+     * Only entries that can still match a live access token are carried over. Safe to run on several instances.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyUserInvalidations() {
+        try {
+            Set<String> userIds = redisTemplate.opsForZSet().range(LEGACY_USER_INVALIDATE_INDEX, 0, -1);
+            if (userIds == null || userIds.isEmpty()) {
+                return;
+            }
+            List<String> keys = userIds.stream().map(id -> LEGACY_USER_INVALIDATE_PREFIX + id).toList();
+            List<String> values = redisTemplate.opsForValue().multiGet(keys);
+            long now = System.currentTimeMillis();
+            Map<Long, List<Long>> usersByTimestamp = new HashMap<>();
+            int index = 0;
+            for (String userId : userIds) {
+                String value = values != null ? values.get(index++) : null;
+                if (value == null) continue;
+                long timestamp = value.startsWith("{") ? Long.parseLong(extractTimestampFromJson(value))
+                        : Long.parseLong(value);
+                if (timestamp + accessTokenLifetimeMs > now) {
+                    usersByTimestamp.computeIfAbsent(timestamp, t -> new ArrayList<>()).add(Long.valueOf(userId));
+                }
             }
-            
-            return tokenIssuedAt.getTime() < invalidateTimestamp;
+            usersByTimestamp.forEach((timestamp, ids) -> writeEpochs(ids, timestamp));
+
+            List<String> legacyKeys = new ArrayList<>(keys);
+            legacyKeys.add(LEGACY_USER_INVALIDATE_INDEX);
+            redisTemplate.delete(legacyKeys);
+            logger.info("[TokenBlacklist] Migrated {} of {} legacy user invalidations to epoch hashes",
+                    usersByTimestamp.values().stream().mapToInt(List::size).sum(), userIds.size());
         } catch (Exception e) {
-            logger.warn("[TokenBlacklist] Invalid data format for user: {} - {}", userId, e.getMessage());
-            return false;
+            logger.warn("[TokenBlacklist] Legacy user invalidation migration failed: {}", e.getMessage());
         }
     }
-    
+
+    /**
+     * Moves the blacklist expiry index from its old name inside the {@code jwt:blacklist:} family.
+     * Members are copied rather than renamed so the two keys may sit in different cluster slots.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyBlacklistIndex() {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> members =
+                    redisTemplate.opsForZSet().rangeWithScores(LEGACY_BLACKLIST_EXPIRY_INDEX, 0, -1);
+            if (members == null || members.isEmpty()) {
+                return;
+            }
+            redisTemplate.opsForZSet().add(BLACKLIST_EXPIRY_INDEX, members);
+            redisTemplate.delete(LEGACY_BLACKLIST_EXPIRY_INDEX);
+            logger.info("[TokenBlacklist] Moved {} blacklist index entries to {}", members.size(), BLACKLIST_EXPIRY_INDEX);
+        } catch (Exception e) {
+            logger.warn("[TokenBlacklist] Blacklist index migration failed: {}", e.getMessage());
+        }
+    }
+
     /**
-     * Extracts timestamp value from JSON string.
-     * Uses simple string parsing to avoid Jackson dependency.
+     * Extracts timestamp value from a legacy JSON entry.
      */
     private String extractTimestampFromJson(String json) {
         String timestampPrefix = "\"timestamp\":";
@@ -150,119 +309,84 @@ public class TokenBlacklistService {
     }
 
     /**
-     * Cleans up blacklist entries for a specific user.
-     * @param userId User ID
-     */
-    public void cleanupUserBlacklist(Long userId) {
-        String userKey = USER_INVALIDATE_PREFIX + userId;
-        redisTemplate.delete(userKey);
-        logger.info("[TokenBlacklist] Cleaned up blacklist for user: {}", userId);
-    }
-
-    /**
-     * Returns the number of blacklisted tokens (using SCAN).
+     * Returns the number of blacklisted tokens and user-wide invalidations (ZCARD + HLEN, O(1)).
+     * Expired tokens are removed by {@link #pruneExpiredEntries()}, so the count may lag by one prune interval;
+     * user invalidations are those in the current epoch window.
      * @return Count of blacklisted tokens.
      */
     public long countBlacklistedTokens() {
         try {
-            logger.info("[TokenBlacklist] Starting count operation using SCAN...");
-            long individualCount = scanKeys(BLACKLIST_PREFIX + "*").size();
-            long userInvalidateCount = scanKeys(USER_INVALIDATE_PREFIX + "*").size();
-            
-            logger.info("[TokenBlacklist] Count - Individual tokens: {}, User invalidate keys: {}, Total: {}", 
-                       individualCount, userInvalidateCount, individualCount + userInvalidateCount);
-            
-            return individualCount + userInvalidateCount;
+            return totalRevocations();
         } catch (Exception e) {
-            logger.error("[TokenBlacklist] Error counting blacklisted tokens with SCAN: {}", e.getMessage());
+            logger.error("[TokenBlacklist] Error counting blacklisted tokens: {}", e.getMessage());
             return 0;
         }
     }
-    
+
+    private long totalRevocations() {
+        long individualCount = zCard(BLACKLIST_EXPIRY_INDEX);
+        long userInvalidateCount = hLen(USER_EPOCH_PREFIX + windowOf(System.currentTimeMillis()));
+
+        logger.debug("[TokenBlacklist] Count - Individual tokens: {}, User invalidate keys: {}, Total: {}",
+                   individualCount, userInvalidateCount, individualCount + userInvalidateCount);
+
+        return individualCount + userInvalidateCount;
+    }
+
     /**
-     * Retrieves the force logout history for all users (using SCAN).
-     * @return List of force logout history entries.
+     * Removes blacklist index members whose underlying keys have expired.
+     * Epoch hashes expire on their own.
      */
-    public java.util.List<java.util.Map<String, Object>> getForceLogoutHistory() {
-        logger.info("[TokenBlacklist] Starting getForceLogoutHistory using SCAN...");
-        java.util.List<java.util.Map<String, Object>> history = new java.util.ArrayList<>();
-        
+    @Scheduled(fixedDelayString = "${app.session.index-prune-interval:60000}")
+    public void pruneExpiredEntries() {
         try {
-            Set<String> userInvalidateKeys = scanKeys(USER_INVALIDATE_PREFIX + "*");
-            logger.info("[TokenBlacklist] Found {} keys with SCAN", userInvalidateKeys.size());
-            
-            for (String key : userInvalidateKeys) {
-                String data = redisTemplate.opsForValue().get(key);
-                if (data == null) continue;
-                
-                java.util.Map<String, Object> entry = new java.util.HashMap<>();
-                
-                String userIdStr = key.substring(USER_INVALIDATE_PREFIX.length());
-                entry.put("userId", Long.parseLong(userIdStr));
-                
-                if (data.startsWith("{")) {
-                    // JSON parsing
-                    entry.put("timestamp", Long.parseLong(Objects.requireNonNull(extractValueFromJson(data, "timestamp"))));
-                    entry.put("adminUserId", extractValueFromJson(data, "adminUserId"));
-                    entry.put("adminEmail", extractValueFromJson(data, "adminEmail"));
-                    entry.put("reason", extractValueFromJson(data, "reason"));
-                } else {
-                    // Legacy data
-                    entry.put("timestamp", Long.parseLong(data));
-                    entry.put("adminUserId", null);
-                    entry.put("adminEmail", "system");
-                    entry.put("reason", "FORCE_LOGOUT");
-                }
-                
-                history.add(entry);
+            double now = System.currentTimeMillis();
+            Long removed = redisTemplate.opsForZSet().removeRangeByScore(BLACKLIST_EXPIRY_INDEX, Double.NEGATIVE_INFINITY, now);
+            if (removed != null && removed > 0) {
+                liveStatsService.revocationsChanged(-removed);
             }
-            
-            history.sort((a, b) -> Long.compare((Long) b.get("timestamp"), (Long) a.get("timestamp")));
-            
+            reportWindowRollover();
         } catch (Exception e) {
-            logger.error("[TokenBlacklist] Error getting force logout history with SCAN: {}", e.getMessage(), e);
+            logger.warn("[TokenBlacklist] Failed to prune expiry index: {}", e.getMessage());
         }
-        
-        return history;
     }
-    
-    /**
-     * Safely gets a set of keys matching a pattern using Redis SCAN.
-     * @param pattern The key pattern to scan for.
-     * @return A set of matching keys.
-     */
-    private Set<String> scanKeys(String pattern) {
-        return redisTemplate.execute((RedisCallback<Set<String>>) connection -> {
-            Set<String> keys = new HashSet<>();
-            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
-                while (cursor.hasNext()) {
-                    keys.add(new String(cursor.next()));
-                }
-            }
-            return keys;
-        });
-    }
-    
+
     /**
-     * Extracts a specific field value from a JSON string.
+     * The user-invalidation count is the HLEN of the current window, so it drops when the window rolls over and
+     * the users carried only by the previous window fall out. One instance per window reports that drop:
+     * the count at rollover is the current window minus what was added since, compared with the previous window.
      */
-    private String extractValueFromJson(String json, String fieldName) {
-        String fieldPrefix = "\"" + fieldName + "\":";
-        int start = json.indexOf(fieldPrefix);
-        if (start == -1) return null;
-        
-        start += fieldPrefix.length();
-        
-        char firstChar = json.charAt(start);
-        if (firstChar == '"') {
-            start++;
-            int end = json.indexOf("\"", start);
-            return json.substring(start, end);
-        } else {
-            int end = json.indexOf(",", start);
-            if (end == -1) end = json.indexOf("}", start);
-            String value = json.substring(start, end).trim();
-            return "null".equals(value) ? null : value;
+    private void reportWindowRollover() {
+        long window = windowOf(System.currentTimeMillis());
+        Boolean claimed = redisTemplate.opsForValue().setIfAbsent(USER_EPOCH_ROLLOVER_PREFIX + window, "1",
+                Duration.ofMillis(2 * accessTokenLifetimeMs));
+        if (!Boolean.TRUE.equals(claimed)) {
+            return;
+        }
+        String addedSince = redisTemplate.opsForValue().get(USER_EPOCH_ADDED_PREFIX + window);
+        long atRollover = hLen(USER_EPOCH_PREFIX + window) - (addedSince != null ? Long.parseLong(addedSince) : 0);
+        long delta = atRollover - hLen(USER_EPOCH_PREFIX + (window - 1));
+        if (delta != 0) {
+            liveStatsService.revocationsChanged(delta);
+            logger.debug("[TokenBlacklist] Epoch window {} started - user invalidations changed by {}", window, delta);
         }
     }
+
+    private long windowOf(long timeMillis) {
+        return timeMillis / accessTokenLifetimeMs;
+    }
+
+    private static long epochSecondsCeil(long timeMillis) {
+        return (timeMillis + 999) / 1000;
+    }
+
+    private long zCard(String key) {
+        Long count = redisTemplate.opsForZSet().zCard(key);
+        return count != null ? count : 0;
+    }
+
+    private long hLen(String key) {
+        Long count = redisTemplate.opsForHash().size(key);
+        return count != null ? count : 0;
+    }
 }
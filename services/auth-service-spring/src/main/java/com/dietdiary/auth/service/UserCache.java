@@ -0,0 +1,163 @@
+package com.dietdiary.auth.service;
+
+import com.dietdiary.auth.entity.User;
+import com.dietdiary.auth.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of user rows, keyed by id with a secondary email index.
+ * <p>
+ * Cached values are detached snapshots without the password hash, so this cache must never back
+ * the login credential check ({@link UserDetailsServiceImpl} always reads the database).
+ * Invalidations are published on a Redis channel so every auth-service instance drops the entry.
+ * <p>
+ * Every invalidation, local or received, bumps a generation counter. A read that misses loads the row and only
+ * caches it if no invalidation arrived meanwhile; otherwise the row may predate the change that caused the
+ * invalidation and is returned uncached. Invalidations are rare, so one counter for all users costs almost nothing.
+ */
+@Service
+public class UserCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+    private static final String INVALIDATION_CHANNEL = "auth:user-cache:invalidate";
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<Long, User> usersById;
+    private final Cache<String, Long> idsByEmail;
+    private final Timer invalidationLag;
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCache(UserRepository userRepository, StringRedisTemplate redisTemplate,
+                     RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry,
+                     @Value("${app.user-cache.max-size:10000}") long maxSize,
+                     @Value("${app.user-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.usersById = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.idsByEmail = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "auth.users");
+        Gauge.builder("auth.users.cache.hit.ratio", usersById, cache -> cache.stats().hitRate())
+                .description("Hit ratio of the in-process user cache")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("auth.users.cache.invalidation.lag")
+                .description("Delay between publishing a user cache invalidation and applying it on this instance")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public Optional<User> findById(Long userId) {
+        User cached = usersById.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadedAt = generation.get();
+        return userRepository.findById(userId).map(user -> fill(user, loadedAt));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        Long userId = idsByEmail.getIfPresent(email);
+        if (userId != null) {
+            User cached = usersById.getIfPresent(userId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        long loadedAt = generation.get();
+        return userRepository.findByEmail(email).map(user -> fill(user, loadedAt));
+    }
+
+    /**
+     * Caches a snapshot of a freshly loaded user and returns it.
+     */
+    public User put(User user) {
+        User snapshot = snapshot(user);
+        usersById.put(snapshot.getId(), snapshot);
+        idsByEmail.put(snapshot.getEmail(), snapshot.getId());
+        return snapshot;
+    }
+
+    /**
+     * Drops the user on this instance and tells the other instances to do the same.
+     */
+    public void invalidate(Long userId, String email) {
+        evictLocal(userId, email);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                    userId + ":" + System.currentTimeMillis() + ":" + (email != null ? email : ""));
+        } catch (Exception e) {
+            logger.error("[UserCache] Failed to publish invalidation for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 3);
+        try {
+            Long userId = Long.parseLong(parts[0]);
+            long publishedAt = Long.parseLong(parts[1]);
+            evictLocal(userId, parts.length > 2 && !parts[2].isEmpty() ? parts[2] : null);
+            invalidationLag.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            logger.warn("[UserCache] Ignoring malformed invalidation message: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Caches the loaded user unless an invalidation arrived after {@code loadedAt} was read.
+     */
+    private User fill(User user, long loadedAt) {
+        User snapshot = snapshot(user);
+        // An invalidation that bumps the generation after this check waits for the compute, then drops the entry
+        usersById.asMap().compute(snapshot.getId(), (id, current) -> {
+            if (generation.get() != loadedAt) {
+                return current;
+            }
+            idsByEmail.put(snapshot.getEmail(), id);
+            return snapshot;
+        });
+        return snapshot;
+    }
+
+    private static User snapshot(User user) {
+        User snapshot = new User(user.getEmail(), null, user.getName());
+        snapshot.setId(user.getId());
+        snapshot.setRole(user.getRole());
+        snapshot.setCreatedAt(user.getCreatedAt());
+        return snapshot;
+    }
+
+    private void evictLocal(Long userId, String email) {
+        generation.incrementAndGet();
+        User cached = usersById.getIfPresent(userId);
+        usersById.invalidate(userId);
+        if (email != null) {
+            idsByEmail.invalidate(email);
+        }
+        if (cached != null) {
+            idsByEmail.invalidate(cached.getEmail());
+        }
+    }
+}
@@ -15,6 +15,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         this.userRepository = userRepository;
     }
 
+    /**
+     * Always reads the database: this backs the login password check, which must see current credentials.
+     * Other lookups go through {@link UserCache}.
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email)
@@ -16,11 +16,11 @@ public class CookieUtil {
     @Value("${app.security.cookie.salt}")
     private String cookieSalt;
 
-    public ResponseCookie createRefreshTokenCookie(String token) {
-        // Hash the token with SHA-256 + salt before storing in cookie
-        String hashedToken = DigestUtils.sha256Hex(token + cookieSalt);
-        
-        return ResponseCookie.from("refresh-token", hashedToken)
+    /**
+     * @param sessionId The session id from {@code RefreshTokenService}; it holds only the salted token hash.
+     */
+    public ResponseCookie createRefreshTokenCookie(String sessionId) {
+        return ResponseCookie.from("refresh-token", sessionId)
                 .httpOnly(true)
                 .secure(true) // HTTPS only
                 .path("/")
@@ -52,13 +52,14 @@ public class CookieUtil {
     }
     
     /**
-     * Validates if the original token matches the hashed token from the cookie.
+     * Validates if the original token matches the hashed token in the cookie value ({@code <bucket>.<hash>},
+     * or a bare hash from an older session).
      */
     public boolean validateRefreshToken(String originalToken, String hashedTokenFromCookie) {
         if (originalToken == null || hashedTokenFromCookie == null) {
             return false;
         }
         String computedHash = DigestUtils.sha256Hex(originalToken + cookieSalt);
-        return computedHash.equals(hashedTokenFromCookie);
+        return computedHash.equals(hashedTokenFromCookie.substring(hashedTokenFromCookie.indexOf('.') + 1));
     }
 }
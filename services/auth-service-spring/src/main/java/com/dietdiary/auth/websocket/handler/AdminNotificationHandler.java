@@ -1,45 +1,120 @@
 package com.dietdiary.auth.websocket.handler;
 
+import com.dietdiary.auth.websocket.service.NotificationReplayBuffer;
+import com.dietdiary.auth.websocket.service.ResumeTokenService;
 import com.dietdiary.auth.websocket.service.WebSocketSessionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class AdminNotificationHandler extends TextWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminNotificationHandler.class);
     private final WebSocketSessionManager sessionManager;
+    private final NotificationReplayBuffer replayBuffer;
+    private final ResumeTokenService resumeTokenService;
+    private final ObjectMapper objectMapper;
 
-    public AdminNotificationHandler(WebSocketSessionManager sessionManager) {
+    public AdminNotificationHandler(WebSocketSessionManager sessionManager, NotificationReplayBuffer replayBuffer,
+                                    ResumeTokenService resumeTokenService, ObjectMapper objectMapper) {
         this.sessionManager = sessionManager;
+        this.replayBuffer = replayBuffer;
+        this.resumeTokenService = resumeTokenService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String replayOnlyEmail = (String) session.getAttributes().get("replayOnlyEmail");
+        if (replayOnlyEmail != null) {
+            replayAndClose(session, replayOnlyEmail, (Long) session.getAttributes().get("lastSeq"));
+            return;
+        }
         String userEmail = (String) session.getAttributes().get("userEmail");
-        if (userEmail != null) {
-            sessionManager.registerSession(userEmail, session);
+        Long userId = (Long) session.getAttributes().get("userId");
+        if (userEmail != null && userId != null) {
+            String role = (String) session.getAttributes().get("role");
+            sessionManager.registerSession(userId, userEmail, role, session);
             logger.info("WebSocket connection established for user: {}", userEmail);
-            session.sendMessage(new TextMessage("{\"type\":\"CONNECTION_SUCCESS\", \"message\":\"Admin notification channel connected.\"}"));
+
+            Map<String, Object> connected = new HashMap<>();
+            connected.put("type", "CONNECTION_SUCCESS");
+            connected.put("message", "Admin notification channel connected.");
+            ResumeTokenService.ResumeClaims claims =
+                    (ResumeTokenService.ResumeClaims) session.getAttributes().get("resumeClaims");
+            if (claims != null) {
+                connected.put("resumeToken", resumeTokenService.issue(claims));
+            }
+            connected.put("seq", replayBuffer.currentSeq(userEmail));
+            sessionManager.sendToSession(session, objectMapper.writeValueAsString(connected));
+
+            Long lastSeq = (Long) session.getAttributes().get("lastSeq");
+            if (lastSeq != null) {
+                replay(session, userEmail, lastSeq);
+            }
         } else {
             logger.warn("WebSocket connection established without user email. Closing session.");
             session.close(CloseStatus.POLICY_VIOLATION);
         }
     }
 
+    private void replay(WebSocketSession session, String userEmail, long lastSeq) {
+        List<String> missed = replayBuffer.since(userEmail, lastSeq);
+        if (missed == null) {
+            logger.info("Replay gap for user {} after seq {}. Asking client to resync.", userEmail, lastSeq);
+            sessionManager.sendToSession(session, "{\"type\":\"RESYNC_REQUIRED\"}");
+            return;
+        }
+        missed.forEach(message -> sessionManager.sendToSession(session, message));
+        logger.info("Replayed {} messages to user {} after seq {}", missed.size(), userEmail, lastSeq);
+    }
+
+    /**
+     * Serves a connection whose resume token was revoked: it is never registered, gets the buffered messages
+     * after {@code lastSeq} written directly (this is the only writer), and is closed with POLICY_VIOLATION so
+     * the client stops reconnecting.
+     */
+    private void replayAndClose(WebSocketSession session, String userEmail, long lastSeq) throws Exception {
+        try {
+            List<String> missed = replayBuffer.since(userEmail, lastSeq);
+            if (missed != null) {
+                for (String message : missed) {
+                    session.sendMessage(new TextMessage(message));
+                }
+                logger.info("Replayed {} messages to revoked session of user {} after seq {}", missed.size(), userEmail, lastSeq);
+            }
+        } catch (Exception e) {
+            logger.warn("Replay to revoked session of user {} failed: {}", userEmail, e.getMessage());
+        } finally {
+            session.close(CloseStatus.POLICY_VIOLATION);
+        }
+    }
+
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         // For now, we just log messages from admins.
         // This could be extended to handle specific commands from admins.
+        sessionManager.markActive(session);
         String userEmail = (String) session.getAttributes().get("userEmail");
         logger.info("Received message from admin {}: {}", userEmail, message.getPayload());
         // Example of echoing back a confirmation
-        session.sendMessage(new TextMessage("{\"type\":\"MESSAGE_RECEIVED\", \"payload\":" + message.getPayload() + "}"));
+        sessionManager.sendToSession(session, "{\"type\":\"MESSAGE_RECEIVED\", \"payload\":" + message.getPayload() + "}");
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        sessionManager.markActive(session);
     }
 
     @Override
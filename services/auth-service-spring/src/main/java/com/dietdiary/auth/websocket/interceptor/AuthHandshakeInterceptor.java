@@ -2,64 +2,126 @@ package com.dietdiary.auth.websocket.interceptor;
 
 import com.dietdiary.auth.security.JwtUtil;
 import com.dietdiary.auth.service.TokenBlacklistService;
+import com.dietdiary.auth.websocket.service.ResumeTokenService;
 import com.nimbusds.jwt.JWTClaimsSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class AuthHandshakeInterceptor implements HandshakeInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthHandshakeInterceptor.class);
     private final JwtUtil jwtUtil;
+
+    private final ResumeTokenService resumeTokenService;
     private final TokenBlacklistService tokenBlacklistService;
 
-    public AuthHandshakeInterceptor(JwtUtil jwtUtil, TokenBlacklistService tokenBlacklistService) {
+    public AuthHandshakeInterceptor(JwtUtil jwtUtil, ResumeTokenService resumeTokenService,
+                                    TokenBlacklistService tokenBlacklistService) {
         this.jwtUtil = jwtUtil;
+        this.resumeTokenService = resumeTokenService;
         this.tokenBlacklistService = tokenBlacklistService;
     }
 
     @Override
     public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) throws Exception {
-        String query = request.getURI().getQuery();
-        logger.debug("WebSocket handshake request query: {}", query);
-
-        if (query != null && query.startsWith("token=")) {
-            String token = query.substring("token=".length());
-            try {
-                if (tokenBlacklistService.isTokenBlacklisted(token)) {
-                    logger.warn("WebSocket connection attempt with blacklisted token.");
-                    return false;
-                }
-
-                JWTClaimsSet claims = jwtUtil.getClaimsFromToken(token);
-                String role = claims.getStringClaim("role");
-                String userEmail = claims.getSubject();
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams();
+        String lastSeq = params.getFirst("lastSeq");
+        if (lastSeq != null && !lastSeq.isEmpty() && lastSeq.chars().allMatch(Character::isDigit)) {
+            attributes.put("lastSeq", Long.parseLong(lastSeq));
+        }
 
-                if ("ADMIN".equals(role) || "SUPER_ADMIN".equals(role)) {
-                    attributes.put("userEmail", userEmail);
-                    attributes.put("role", role);
-                    logger.info("Admin user {} authenticated for WebSocket.", userEmail);
+        // Reconnects present the resume token from their previous connection: one HMAC plus the revocation
+        // lookups of the access token the chain started from, without re-parsing or re-verifying the JWT.
+        String resumeToken = params.getFirst("resume");
+        ResumeTokenService.ResumeClaims revoked = null;
+        if (resumeToken != null) {
+            Optional<ResumeTokenService.ResumeClaims> claims = resumeTokenService.verify(resumeToken);
+            if (claims.isPresent() && isAdminRole(claims.get().role())) {
+                if (!isRevoked(claims.get())) {
+                    putIdentity(attributes, claims.get());
+                    logger.info("Admin user {} resumed WebSocket session.", claims.get().email());
                     return true;
-                } else {
-                    logger.warn("Non-admin user {} attempted to connect to admin WebSocket.", userEmail);
-                    return false;
                 }
-            } catch (Exception e) {
-                logger.error("Invalid token for WebSocket connection.", e);
-                return false;
+                revoked = claims.get();
+            } else {
+                logger.warn("WebSocket resume attempt with invalid or expired resume token.");
             }
         }
-        logger.warn("WebSocket connection attempt without token.");
+
+        String token = params.getFirst("token");
+        if (token != null && authenticate(token, attributes)) {
+            return true;
+        }
+
+        // A revoked chain (e.g. an admin re-login elsewhere) still gets what it missed, such as the
+        // FORCED_LOGOUT_NOTICE sent just before the revocation; the handler replays it and closes with 1008.
+        if (revoked != null && attributes.containsKey("lastSeq")) {
+            attributes.put("replayOnlyEmail", revoked.email());
+            logger.info("Admin user {} presented a revoked resume token. Replaying missed messages before closing.",
+                    revoked.email());
+            return true;
+        }
+        if (token == null) {
+            logger.warn("WebSocket connection attempt without token.");
+        }
         return false;
     }
 
+    private boolean authenticate(String token, Map<String, Object> attributes) {
+        try {
+            if (!jwtUtil.validateToken(token)) {
+                logger.warn("WebSocket connection attempt with invalid or revoked token.");
+                return false;
+            }
+
+            JWTClaimsSet claims = jwtUtil.getClaimsFromToken(token);
+            String role = claims.getStringClaim("role");
+            String userEmail = claims.getSubject();
+
+            if (isAdminRole(role)) {
+                putIdentity(attributes, new ResumeTokenService.ResumeClaims(claims.getLongClaim("userId"),
+                        userEmail, role, claims.getJWTID(), claims.getIssueTime().getTime(),
+                        claims.getExpirationTime().getTime()));
+                logger.info("Admin user {} authenticated for WebSocket.", userEmail);
+                return true;
+            } else {
+                logger.warn("Non-admin user {} attempted to connect to admin WebSocket.", userEmail);
+                return false;
+            }
+        } catch (Exception e) {
+            logger.error("Invalid token for WebSocket connection.", e);
+            return false;
+        }
+    }
+
+    private boolean isRevoked(ResumeTokenService.ResumeClaims claims) {
+        return tokenBlacklistService.isTokenBlacklisted(claims.jwtId())
+                || tokenBlacklistService.isUserTokenInvalidated(claims.userId(), new Date(claims.issuedAt()));
+    }
+
+    private static void putIdentity(Map<String, Object> attributes, ResumeTokenService.ResumeClaims claims) {
+        attributes.put("userId", claims.userId());
+        attributes.put("userEmail", claims.email());
+        attributes.put("role", claims.role());
+        attributes.put("resumeClaims", claims);
+    }
+
+    private boolean isAdminRole(String role) {
+        return "ADMIN".equals(role) || "SUPER_ADMIN".equals(role);
+    }
+
     @Override
     public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
         // Do nothing
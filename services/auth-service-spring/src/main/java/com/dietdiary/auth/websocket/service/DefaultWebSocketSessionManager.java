@@ -1,78 +1,151 @@
 package com.dietdiary.auth.websocket.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Set;
 
+/**
+ * Holds this instance's WebSocket sessions in a {@link WebSocketSessionRegistry}. All sends are queued per session and written
+ * asynchronously (see {@link QueuedWebSocketSession}), so no caller thread waits on a client.
+ */
 @Service
 public class DefaultWebSocketSessionManager implements WebSocketSessionManager {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultWebSocketSessionManager.class);
-    private final ConcurrentHashMap<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, String> sessionToUser = new ConcurrentHashMap<>();
+
+    private final WebSocketSessionRegistry registry;
+    private final SessionHeartbeatWheel heartbeatWheel;
+    private final ThreadPoolTaskExecutor sendExecutor;
+    private final int queueCapacity;
+    private final int sendTimeLimitMillis;
+    private final Counter droppedCounter;
+    private final Timer sendTimer;
+
+    public DefaultWebSocketSessionManager(WebSocketSessionRegistry registry, SessionHeartbeatWheel heartbeatWheel,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${app.websocket.send-threads:4}") int sendThreads,
+                                          @Value("${app.websocket.send-queue-capacity:256}") int queueCapacity,
+                                          @Value("${app.websocket.send-time-limit-ms:5000}") int sendTimeLimitMillis) {
+        this.registry = registry;
+        this.heartbeatWheel = heartbeatWheel;
+        this.sendExecutor = new ThreadPoolTaskExecutor();
+        this.sendExecutor.setCorePoolSize(sendThreads);
+        this.sendExecutor.setMaxPoolSize(sendThreads);
+        this.sendExecutor.setThreadNamePrefix("ws-send-");
+        this.sendExecutor.initialize();
+        this.queueCapacity = queueCapacity;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.droppedCounter = Counter.builder("auth.websocket.messages.dropped")
+                .description("Outbound WebSocket messages dropped because of a full queue or a failed session")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("auth.websocket.send.latency")
+                .description("Time spent writing one outbound WebSocket message")
+                .register(meterRegistry);
+        Gauge.builder("auth.websocket.send.queue.depth", registry,
+                        sessions -> sessions.all().stream().mapToInt(QueuedWebSocketSession::queueDepth).sum())
+                .description("Outbound WebSocket messages waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
 
     @Override
-    public void registerSession(String userEmail, WebSocketSession session) {
-        // If a user logs in from a new session, close the old one.
-        if (userSessions.containsKey(userEmail)) {
-            logger.warn("User {} already has an active session. Closing the old one.", userEmail);
-            WebSocketSession oldSession = userSessions.get(userEmail);
-            try {
-                oldSession.close();
-            } catch (IOException e) {
-                logger.error("Error closing old session for user {}", userEmail, e);
-            }
-        }
-        userSessions.put(userEmail, session);
-        sessionToUser.put(session.getId(), userEmail);
-        logger.info("WebSocket session registered for user: {}", userEmail);
+    public void registerSession(Long userId, String userEmail, String role, WebSocketSession session) {
+        QueuedWebSocketSession queued = new QueuedWebSocketSession(session, userId, userEmail, role, queueCapacity,
+                sendTimeLimitMillis, sendExecutor, heartbeatWheel, droppedCounter, sendTimer);
+        registry.register(queued);
+        heartbeatWheel.schedule(queued);
+        logger.info("WebSocket session {} registered for user: {}", session.getId(), userEmail);
     }
 
     @Override
     public void removeSession(WebSocketSession session) {
-        String userEmail = sessionToUser.remove(session.getId());
-        if (userEmail != null) {
-            userSessions.remove(userEmail);
-            logger.info("WebSocket session removed for user: {}", userEmail);
+        QueuedWebSocketSession removed = registry.remove(session.getId());
+        if (removed != null) {
+            logger.info("WebSocket session {} removed for user: {}", session.getId(), removed.getEmail());
         }
     }
 
+    /**
+     * Detaches and closes every local session of the given users.
+     */
     @Override
-    public WebSocketSession getSession(String userEmail) {
-        return userSessions.get(userEmail);
+    public int closeUserSessions(Collection<Long> userIds, CloseStatus status) {
+        int closed = 0;
+        for (Long userId : userIds) {
+            Collection<QueuedWebSocketSession> sessions = registry.removeUser(userId);
+            sessions.forEach(session -> session.close(status));
+            closed += sessions.size();
+        }
+        if (closed > 0) {
+            logger.info("Closed {} WebSocket sessions of {} users ({})", closed, userIds.size(), status);
+        }
+        return closed;
+    }
+
+    @Override
+    public void markActive(WebSocketSession session) {
+        QueuedWebSocketSession queued = registry.getBySessionId(session.getId());
+        if (queued != null) {
+            queued.markSeen();
+        }
+    }
+
+    @Override
+    public boolean hasSession(String userEmail) {
+        return !registry.getByEmail(userEmail).isEmpty();
     }
 
     @Override
     public void sendToUser(String userEmail, String message) {
-        WebSocketSession session = getSession(userEmail);
-        if (session != null && session.isOpen()) {
-            try {
-                session.sendMessage(new TextMessage(message));
-                logger.info("Sent message to {}: {}", userEmail, message);
-            } catch (IOException e) {
-                logger.error("Failed to send message to user {}", userEmail, e);
-            }
-        } else {
+        Collection<QueuedWebSocketSession> sessions = registry.getByEmail(userEmail);
+        if (sessions.isEmpty()) {
             logger.warn("No active session found for user {}", userEmail);
+            return;
+        }
+        sessions.forEach(session -> session.offer(message));
+        logger.info("Queued message for {} ({} sessions): {}", userEmail, sessions.size(), message);
+    }
+
+    public void sendToRole(String role, String message) {
+        registry.getByRole(role).forEach(session -> session.offer(message));
+    }
+
+    @Override
+    public void sendToSession(WebSocketSession session, String message) {
+        QueuedWebSocketSession queued = registry.getBySessionId(session.getId());
+        if (queued != null) {
+            queued.offer(message);
+        } else {
+            logger.warn("Session {} is not registered. Message not sent.", session.getId());
         }
     }
 
+    /**
+     * @return Emails that currently have a session on this instance.
+     */
+    public Set<String> localUserEmails() {
+        return registry.emails();
+    }
+
     @Override
     public void broadcast(String message) {
         logger.info("Broadcasting message to all admin users: {}", message);
-        userSessions.values().forEach(session -> {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
-                }
-            } catch (IOException e) {
-                logger.error("Failed to broadcast message to session {}", session.getId(), e);
-            }
-        });
+        registry.all().forEach(session -> session.offer(message));
     }
 }
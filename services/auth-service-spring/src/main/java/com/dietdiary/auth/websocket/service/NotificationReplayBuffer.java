@@ -0,0 +1,120 @@
+package com.dietdiary.auth.websocket.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-user sequence numbers and a bounded replay buffer for user-targeted WebSocket notifications.
+ * <p>
+ * {@link #append} stamps a JSON object message with the next {@code seq} for the user and keeps it in a
+ * capped Redis list ({@code ws:{<email>}:replay}), so a client that reconnects with its last seen
+ * sequence number can be sent what it missed. Both keys share a hash tag and are updated by one script.
+ * Clients must ignore messages whose {@code seq} they have already seen: a message sequenced while a
+ * resumed session is being registered may arrive both live and from the replay.
+ */
+@Component
+public class NotificationReplayBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationReplayBuffer.class);
+    private static final String SEQ_PREFIX = "\"seq\":";
+
+    /**
+     * KEYS[1]=sequence key, KEYS[2]=replay list;
+     * ARGV: message without its opening brace, separator ("," or "" for an empty object), capacity, ttlMillis.
+     */
+    private static final RedisScript<String> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            local seq = redis.call('INCR', KEYS[1])
+            local message = '{"seq":' .. seq .. ARGV[2] .. ARGV[1]
+            redis.call('RPUSH', KEYS[2], message)
+            redis.call('LTRIM', KEYS[2], -tonumber(ARGV[3]), -1)
+            redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            redis.call('PEXPIRE', KEYS[2], ARGV[4])
+            return message
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final int capacity;
+    private final long ttlMillis;
+
+    public NotificationReplayBuffer(StringRedisTemplate redisTemplate,
+                                    @Value("${app.websocket.replay.capacity:100}") int capacity,
+                                    @Value("${app.websocket.replay.ttl-ms:600000}") long ttlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Assigns the next sequence number to a message and stores it for replay.
+     * @return The message with a leading {@code seq} field, or the original message if it is not a
+     *         JSON object or Redis is unavailable.
+     */
+    public String append(String userEmail, String message) {
+        String trimmed = message.trim();
+        if (!trimmed.startsWith("{")) {
+            return message;
+        }
+        String rest = trimmed.substring(1).trim();
+        String separator = rest.startsWith("}") ? "" : ",";
+        try {
+            String sequenced = redisTemplate.execute(APPEND_SCRIPT,
+                    List.of(seqKey(userEmail), replayKey(userEmail)),
+                    rest, separator, String.valueOf(capacity), String.valueOf(ttlMillis));
+            return sequenced != null ? sequenced : message;
+        } catch (Exception e) {
+            logger.warn("[WebSocketReplay] Failed to sequence message for {}: {}", userEmail, e.getMessage());
+            return message;
+        }
+    }
+
+    public long currentSeq(String userEmail) {
+        String value = redisTemplate.opsForValue().get(seqKey(userEmail));
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * Returns buffered messages with a sequence number greater than {@code lastSeq}.
+     * @return The messages in order, or null if some of them have already been trimmed from the buffer.
+     */
+    public List<String> since(String userEmail, long lastSeq) {
+        List<String> buffered = redisTemplate.opsForList().range(replayKey(userEmail), 0, -1);
+        if (buffered == null || buffered.isEmpty()) {
+            return currentSeq(userEmail) > lastSeq ? null : List.of();
+        }
+        if (seqOf(buffered.get(0)) > lastSeq + 1) {
+            return null;
+        }
+        List<String> missed = new ArrayList<>();
+        for (String message : buffered) {
+            if (seqOf(message) > lastSeq) {
+                missed.add(message);
+            }
+        }
+        return missed;
+    }
+
+    private static long seqOf(String message) {
+        int start = message.indexOf(SEQ_PREFIX) + SEQ_PREFIX.length();
+        int end = start;
+        while (end < message.length() && Character.isDigit(message.charAt(end))) {
+            end++;
+        }
+        return Long.parseLong(message.substring(start, end));
+    }
+
+    private static String seqKey(String userEmail) {
+        return "ws:{" + userEmail + "}:seq";
+    }
+
+    private static String replayKey(String userEmail) {
+        return "ws:{" + userEmail + "}:replay";
+    }
+}
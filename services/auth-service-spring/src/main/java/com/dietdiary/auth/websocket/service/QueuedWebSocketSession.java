@@ -0,0 +1,191 @@
+package com.dietdiary.auth.websocket.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outbound side of one WebSocket session: a bounded queue drained by at most one writer at a time
+ * on a shared executor. Callers never block on the network.
+ * <p>
+ * The single writer means a client that stops reading blocks one send thread, so each send is bounded by
+ * the send-time limit twice over: Tomcat's blocking send times out after it (the send then fails and the
+ * session is closed here), and {@link SessionHeartbeatWheel} closes any session whose current send has run
+ * longer, whatever the container. Messages offered while the queue is full are dropped.
+ */
+class QueuedWebSocketSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueuedWebSocketSession.class);
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+    private static final long NOT_SENDING = Long.MIN_VALUE;
+
+    private final WebSocketSession session;
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final BlockingQueue<WebSocketMessage<?>> queue;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long lastSeenNanos = System.nanoTime();
+    private volatile long sendStartedNanos = NOT_SENDING;
+    private final long sendTimeLimitNanos;
+    private final SessionHeartbeatWheel watchdog;
+    private final Counter droppedCounter;
+    private final Timer sendTimer;
+
+    QueuedWebSocketSession(WebSocketSession session, Long userId, String email, String role, int capacity, int sendTimeLimitMillis,
+                           Executor executor, SessionHeartbeatWheel watchdog, Counter droppedCounter, Timer sendTimer) {
+        this.session = session;
+        this.sendTimeLimitNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMillis);
+        this.watchdog = watchdog;
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession() instanceof jakarta.websocket.Session standardSession) {
+            standardSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, (long) sendTimeLimitMillis);
+        }
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = executor;
+        this.droppedCounter = droppedCounter;
+        this.sendTimer = sendTimer;
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    Long getUserId() {
+        return userId;
+    }
+
+    String getEmail() {
+        return email;
+    }
+
+    String getRole() {
+        return role;
+    }
+
+    /**
+     * Records inbound activity (a pong or any client message).
+     */
+    void markSeen() {
+        lastSeenNanos = System.nanoTime();
+    }
+
+    long getLastSeenNanos() {
+        return lastSeenNanos;
+    }
+
+    boolean isOpen() {
+        return session.isOpen();
+    }
+
+    /**
+     * @return true if a send has been in progress for longer than the send-time limit.
+     */
+    boolean isSendStalled(long nowNanos) {
+        long started = sendStartedNanos;
+        return started != NOT_SENDING && nowNanos - started > sendTimeLimitNanos;
+    }
+
+    /**
+     * Queues a ping frame; the client's pong is reported through {@link #markSeen()}.
+     */
+    boolean ping() {
+        return enqueue(new PingMessage());
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Queues a message for delivery.
+     * @return false if the session is closed or its queue is full (the message is dropped).
+     */
+    boolean offer(String message) {
+        return enqueue(new TextMessage(message));
+    }
+
+    private boolean enqueue(WebSocketMessage<?> message) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        if (!queue.offer(message)) {
+            droppedCounter.increment();
+            logger.warn("[WebSocket] Send queue full for session {}. Message dropped.", session.getId());
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    void close(CloseStatus status) {
+        queue.clear();
+        try {
+            session.close(status);
+        } catch (Exception e) {
+            logger.debug("[WebSocket] Error closing session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                logger.warn("[WebSocket] Send executor rejected drain for session {}", session.getId());
+            }
+        }
+    }
+
+    private void drain() {
+        watchdog.sendsStarted(this);
+        try {
+            WebSocketMessage<?> message;
+            while ((message = queue.poll()) != null) {
+                if (!session.isOpen()) {
+                    droppedCounter.increment(queue.size() + 1);
+                    queue.clear();
+                    return;
+                }
+                long start = System.nanoTime();
+                sendStartedNanos = start;
+                try {
+                    session.sendMessage(message);
+                } catch (Exception e) {
+                    logger.warn("[WebSocket] Send failed for session {}. Closing. Reason: {}", session.getId(), e.getMessage());
+                    droppedCounter.increment();
+                    close(CloseStatus.SESSION_NOT_RELIABLE);
+                    return;
+                } finally {
+                    sendStartedNanos = NOT_SENDING;
+                    sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        } finally {
+            watchdog.sendsFinished(this);
+            draining.set(false);
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.dietdiary.auth.websocket.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies WebSocket resume tokens.
+ * <p>
+ * A resume token lets a client that just lost its admin notification connection reconnect without
+ * presenting its access token again. It is an HMAC-signed
+ * {@code userId|jwtId|issuedAt|notAfter|expiresAt|role|email} tuple that carries the identity of the access
+ * token the chain started from. A fresh token is issued on every successful connection, but
+ * {@code notAfter} (the access token's {@code exp}) is copied unchanged, so a chain of resumes never outlives
+ * the access token. {@code jwtId} and {@code issuedAt} let the handshake check the same revocations as a
+ * full validation without re-parsing the JWT.
+ */
+@Component
+public class ResumeTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String CONTEXT = "ws-resume|";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+
+    public ResumeTokenService(@Value("${jwt.secret}") String secret,
+                              @Value("${app.websocket.resume.ttl-ms:300000}") long ttlMillis) {
+        this.key = new SecretKeySpec((CONTEXT + secret).getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttlMillis = ttlMillis;
+    }
+
+    public String issue(ResumeClaims claims) {
+        long expiresAt = Math.min(System.currentTimeMillis() + ttlMillis, claims.notAfter());
+        String payload = claims.userId() + "|" + claims.jwtId() + "|" + claims.issuedAt() + "|" + claims.notAfter()
+                + "|" + expiresAt + "|" + claims.role() + "|" + claims.email();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    public Optional<ResumeClaims> verify(String token) {
+        try {
+            int dot = token.indexOf('.');
+            if (dot < 0) {
+                return Optional.empty();
+            }
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return Optional.empty();
+            }
+            // The email is last so it may contain '|'
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 7);
+            if (fields.length < 7 || Long.parseLong(fields[4]) < System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ResumeClaims(Long.parseLong(fields[0]), fields[6], fields[5], fields[1],
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign resume token", e);
+        }
+    }
+
+    /**
+     * @param jwtId    jti of the access token the chain started from
+     * @param issuedAt its {@code iat} in epoch milliseconds
+     * @param notAfter its {@code exp} in epoch milliseconds
+     */
+    public record ResumeClaims(Long userId, String email, String role, String jwtId, long issuedAt, long notAfter) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.dietdiary.auth.websocket.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Routes WebSocket messages across auth-service instances.
+ * <p>
+ * Each instance records which users it holds sessions for in {@code ws:route:<email>}, a sorted set of
+ * instance ids scored by heartbeat expiry. {@link #sendToUser} sequences the message in the user's
+ * {@link NotificationReplayBuffer}, delivers it to local sessions directly and publishes it to the channel
+ * of every other live owner; {@link #broadcast} delivers locally and fans out to the other instances over
+ * a shared channel. Broadcasts are not sequenced. {@link #closeUserSessions} travels the same shared channel,
+ * since sessions are routed by email and the caller only knows user ids.
+ */
+@Service
+@Primary
+public class RoutingWebSocketSessionManager implements WebSocketSessionManager, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingWebSocketSessionManager.class);
+    private static final String ROUTE_PREFIX = "ws:route:";
+    private static final String INSTANCE_CHANNEL_PREFIX = "ws:instance:";
+    private static final String BROADCAST_CHANNEL = "ws:broadcast";
+
+    private final DefaultWebSocketSessionManager localSessions;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationReplayBuffer replayBuffer;
+    private final String instanceId;
+    private final String instanceChannel;
+    private final long routeTtlMillis;
+
+    public RoutingWebSocketSessionManager(DefaultWebSocketSessionManager localSessions,
+                                          StringRedisTemplate redisTemplate,
+                                          RedisMessageListenerContainer listenerContainer,
+                                          ObjectMapper objectMapper,
+                                          NotificationReplayBuffer replayBuffer,
+                                          @Value("${app.instance-id:}") String instanceId,
+                                          @Value("${app.websocket.route-ttl-ms:30000}") long routeTtlMillis) {
+        this.localSessions = localSessions;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.replayBuffer = replayBuffer;
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : UUID.randomUUID().toString();
+        this.instanceChannel = INSTANCE_CHANNEL_PREFIX + this.instanceId;
+        this.routeTtlMillis = routeTtlMillis;
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(instanceChannel));
+        listenerContainer.addMessageListener(this, new ChannelTopic(BROADCAST_CHANNEL));
+        logger.info("[WebSocketRouting] Instance id: {}", this.instanceId);
+    }
+
+    @Override
+    public void registerSession(Long userId, String userEmail, String role, WebSocketSession session) {
+        localSessions.registerSession(userId, userEmail, role, session);
+        try {
+            refreshRoutes(Set.of(userEmail));
+        } catch (Exception e) {
+            logger.warn("[WebSocketRouting] Failed to register route for {}: {}", userEmail, e.getMessage());
+        }
+    }
+
+    @Override
+    public void removeSession(WebSocketSession session) {
+        localSessions.removeSession(session);
+        String userEmail = (String) session.getAttributes().get("userEmail");
+        if (userEmail != null && !localSessions.hasSession(userEmail)) {
+            try {
+                redisTemplate.opsForZSet().remove(ROUTE_PREFIX + userEmail, instanceId);
+            } catch (Exception e) {
+                logger.warn("[WebSocketRouting] Failed to remove route for {}: {}", userEmail, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void markActive(WebSocketSession session) {
+        localSessions.markActive(session);
+    }
+
+    @Override
+    public boolean hasSession(String userEmail) {
+        return localSessions.hasSession(userEmail);
+    }
+
+    @Override
+    public void sendToUser(String userEmail, String outbound) {
+        String message = replayBuffer.append(userEmail, outbound);
+        if (localSessions.hasSession(userEmail)) {
+            localSessions.sendToUser(userEmail, message);
+        }
+        try {
+            Set<String> owners = redisTemplate.opsForZSet().rangeByScore(ROUTE_PREFIX + userEmail,
+                    System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+            if (owners == null) {
+                return;
+            }
+            for (String owner : owners) {
+                if (!owner.equals(instanceId)) {
+                    publish(INSTANCE_CHANNEL_PREFIX + owner, Map.of("email", userEmail, "message", message));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("[WebSocketRouting] Failed to route message for {}: {}", userEmail, e.getMessage());
+        }
+    }
+
+    @Override
+    public void sendToSession(WebSocketSession session, String message) {
+        localSessions.sendToSession(session, message);
+    }
+
+    @Override
+    public void broadcast(String message) {
+        localSessions.broadcast(message);
+        try {
+            publish(BROADCAST_CHANNEL, Map.of("origin", instanceId, "message", message));
+        } catch (Exception e) {
+            logger.error("[WebSocketRouting] Failed to publish broadcast: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int closeUserSessions(Collection<Long> userIds, CloseStatus status) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        int closed = localSessions.closeUserSessions(userIds, status);
+        try {
+            publish(BROADCAST_CHANNEL, Map.of("origin", instanceId,
+                    "closeUsers", userIds.stream().map(String::valueOf).collect(Collectors.joining(",")),
+                    "closeCode", String.valueOf(status.getCode())));
+        } catch (Exception e) {
+            logger.error("[WebSocketRouting] Failed to publish session close for {} users: {}", userIds.size(), e.getMessage());
+        }
+        return closed;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        try {
+            JsonNode envelope = objectMapper.readTree(message.getBody());
+            if (BROADCAST_CHANNEL.equals(channel)) {
+                if (instanceId.equals(envelope.path("origin").asText())) {
+                    return;
+                }
+                if (envelope.has("closeUsers")) {
+                    List<Long> userIds = Arrays.stream(envelope.path("closeUsers").asText().split(","))
+                            .map(Long::valueOf)
+                            .toList();
+                    localSessions.closeUserSessions(userIds, new CloseStatus(envelope.path("closeCode").asInt()));
+                } else {
+                    localSessions.broadcast(envelope.path("message").asText());
+                }
+            } else if (instanceChannel.equals(channel)) {
+                localSessions.sendToUser(envelope.path("email").asText(), envelope.path("message").asText());
+            }
+        } catch (Exception e) {
+            logger.warn("[WebSocketRouting] Ignoring malformed message on {}: {}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * Extends the route entries of every local session so other instances keep routing to this one.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.route-heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        Set<String> emails = localSessions.localUserEmails();
+        if (emails.isEmpty()) {
+            return;
+        }
+        try {
+            refreshRoutes(emails);
+        } catch (Exception e) {
+            logger.warn("[WebSocketRouting] Heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void refreshRoutes(Set<String> emails) {
+        long expiresAt = System.currentTimeMillis() + routeTtlMillis;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String email : emails) {
+                String key = ROUTE_PREFIX + email;
+                stringConnection.zAdd(key, expiresAt, instanceId);
+                stringConnection.zRemRangeByScore(key, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+                stringConnection.pExpire(key, routeTtlMillis);
+            }
+            return null;
+        });
+    }
+
+    private void publish(String channel, Map<String, String> envelope) throws Exception {
+        redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(envelope));
+    }
+}
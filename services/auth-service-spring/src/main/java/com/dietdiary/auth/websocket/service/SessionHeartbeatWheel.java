@@ -0,0 +1,187 @@
+package com.dietdiary.auth.websocket.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel that pings every registered WebSocket session once per heartbeat interval and
+ * evicts sessions that have shown no inbound activity (pong or message) within the timeout.
+ * <p>
+ * Each session sits in exactly one bucket; a tick only visits the bucket under the cursor, so the cost
+ * per tick is proportional to the sessions due in it, not to the total number of sessions. New sessions
+ * are handed over through a lock-free queue and all bucket access happens on the single wheel thread.
+ * <p>
+ * Every tick also acts as the send watchdog: sessions currently being drained register themselves, and any
+ * whose in-flight send has exceeded the send-time limit is closed, so a client that stops reading cannot
+ * hold a send thread. Closing a stalled connection can itself block, so that happens on a separate thread.
+ */
+@Component
+class SessionHeartbeatWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionHeartbeatWheel.class);
+
+    private final WebSocketSessionRegistry registry;
+    private final long tickMillis;
+    private final long intervalTicks;
+    private final long timeoutNanos;
+    private final List<Queue<Slot>> buckets;
+    private final Queue<QueuedWebSocketSession> pending = new ConcurrentLinkedQueue<>();
+    private final Set<QueuedWebSocketSession> sending = ConcurrentHashMap.newKeySet();
+    private final Counter evictedCounter;
+    private final Counter sendTimeoutCounter;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService closer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-send-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long tick;
+
+    SessionHeartbeatWheel(WebSocketSessionRegistry registry, MeterRegistry meterRegistry,
+                          @Value("${app.websocket.heartbeat.tick-ms:1000}") long tickMillis,
+                          @Value("${app.websocket.heartbeat.wheel-size:64}") int wheelSize,
+                          @Value("${app.websocket.heartbeat.interval-ms:25000}") long intervalMillis,
+                          @Value("${app.websocket.heartbeat.timeout-ms:60000}") long timeoutMillis) {
+        this.registry = registry;
+        this.tickMillis = tickMillis;
+        this.intervalTicks = Math.max(1, intervalMillis / tickMillis);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+
+        Gauge.builder("auth.websocket.sessions.live", registry, r -> r.all().size())
+                .description("WebSocket sessions currently registered on this instance")
+                .register(meterRegistry);
+        this.evictedCounter = Counter.builder("auth.websocket.sessions.evicted")
+                .description("WebSocket sessions closed for missing heartbeats")
+                .register(meterRegistry);
+        this.sendTimeoutCounter = Counter.builder("auth.websocket.sessions.send_timeout")
+                .description("WebSocket sessions closed because one send exceeded the send-time limit")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        closer.shutdownNow();
+    }
+
+    void schedule(QueuedWebSocketSession session) {
+        pending.add(session);
+    }
+
+    /**
+     * Called by a session's writer when it starts draining; until {@link #sendsFinished} its sends are watched.
+     */
+    void sendsStarted(QueuedWebSocketSession session) {
+        sending.add(session);
+    }
+
+    void sendsFinished(QueuedWebSocketSession session) {
+        sending.remove(session);
+    }
+
+    private void advance() {
+        try {
+            Queue<Slot> bucket = buckets.get((int) (tick % buckets.size()));
+            int due = bucket.size();
+            for (int i = 0; i < due; i++) {
+                Slot slot = bucket.poll();
+                if (slot.rounds > 0) {
+                    slot.rounds--;
+                    bucket.add(slot);
+                } else {
+                    check(slot.session);
+                }
+            }
+            QueuedWebSocketSession added;
+            while ((added = pending.poll()) != null) {
+                place(added, intervalTicks);
+            }
+            tick++;
+            closeStalledSends();
+        } catch (Exception e) {
+            logger.error("[WebSocketHeartbeat] Tick failed", e);
+        }
+    }
+
+    private void check(QueuedWebSocketSession session) {
+        String sessionId = session.getSession().getId();
+        if (registry.getBySessionId(sessionId) != session) {
+            return;
+        }
+        if (!session.isOpen() || System.nanoTime() - session.getLastSeenNanos() > timeoutNanos) {
+            registry.remove(sessionId);
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            evictedCounter.increment();
+            logger.info("[WebSocketHeartbeat] Evicted unresponsive session {} for user: {}", sessionId, session.getEmail());
+            return;
+        }
+        session.ping();
+        place(session, intervalTicks);
+    }
+
+    private void closeStalledSends() {
+        long now = System.nanoTime();
+        for (QueuedWebSocketSession session : sending) {
+            if (!session.isSendStalled(now)) {
+                continue;
+            }
+            sending.remove(session);
+            String sessionId = session.getSession().getId();
+            if (registry.getBySessionId(sessionId) == session) {
+                registry.remove(sessionId);
+            }
+            sendTimeoutCounter.increment();
+            logger.warn("[WebSocketHeartbeat] Closing session {} for user {}: send exceeded the time limit",
+                    sessionId, session.getEmail());
+            closer.execute(() -> session.close(CloseStatus.SESSION_NOT_RELIABLE));
+        }
+    }
+
+    private void place(QueuedWebSocketSession session, long delayTicks) {
+        long target = tick + delayTicks;
+        Slot slot = new Slot(session, (delayTicks - 1) / buckets.size());
+        buckets.get((int) (target % buckets.size())).add(slot);
+    }
+
+    private static final class Slot {
+        private final QueuedWebSocketSession session;
+        private long rounds;
+
+        private Slot(QueuedWebSocketSession session, long rounds) {
+            this.session = session;
+            this.rounds = rounds;
+        }
+    }
+}
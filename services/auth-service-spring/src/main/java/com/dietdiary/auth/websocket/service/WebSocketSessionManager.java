@@ -1,11 +1,22 @@
 package com.dietdiary.auth.websocket.service;
 
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.Collection;
+
 public interface WebSocketSessionManager {
-    void registerSession(String userEmail, WebSocketSession session);
+    void registerSession(Long userId, String userEmail, String role, WebSocketSession session);
     void removeSession(WebSocketSession session);
-    WebSocketSession getSession(String userEmail);
+    boolean hasSession(String userEmail);
+    void markActive(WebSocketSession session);
     void sendToUser(String userEmail, String message);
+    void sendToSession(WebSocketSession session, String message);
     void broadcast(String message);
+
+    /**
+     * Closes every session of the given users, wherever they are connected.
+     * @return Number of sessions closed on this instance.
+     */
+    int closeUserSessions(Collection<Long> userIds, CloseStatus status);
 }
@@ -0,0 +1,110 @@
+package com.dietdiary.auth.websocket.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single registry of this instance's WebSocket sessions, indexed by session id, user id, email and role.
+ * A user may hold several sessions. Every operation is a constant number of hash-map updates; the
+ * per-key sets are created and dropped inside {@code compute} so an index never keeps an empty set
+ * or loses a concurrent insert.
+ */
+@Component
+class WebSocketSessionRegistry {
+
+    private final Map<String, QueuedWebSocketSession> bySessionId = new ConcurrentHashMap<>();
+    private final Map<Long, Set<QueuedWebSocketSession>> byUserId = new ConcurrentHashMap<>();
+    private final Map<String, Set<QueuedWebSocketSession>> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, Set<QueuedWebSocketSession>> byRole = new ConcurrentHashMap<>();
+
+    void register(QueuedWebSocketSession session) {
+        bySessionId.put(session.getSession().getId(), session);
+        add(byUserId, session.getUserId(), session);
+        add(byEmail, session.getEmail(), session);
+        add(byRole, session.getRole(), session);
+    }
+
+    /**
+     * @return The removed session, or null if it was not registered.
+     */
+    QueuedWebSocketSession remove(String sessionId) {
+        QueuedWebSocketSession session = bySessionId.remove(sessionId);
+        if (session != null) {
+            unindex(session);
+        }
+        return session;
+    }
+
+    /**
+     * Atomically detaches every session of a user; sessions registered afterwards are not affected.
+     * @return The removed sessions.
+     */
+    Collection<QueuedWebSocketSession> removeUser(Long userId) {
+        Set<QueuedWebSocketSession> sessions = byUserId.remove(userId);
+        if (sessions == null) {
+            return List.of();
+        }
+        for (QueuedWebSocketSession session : sessions) {
+            bySessionId.remove(session.getSession().getId());
+            discard(byEmail, session.getEmail(), session);
+            discard(byRole, session.getRole(), session);
+        }
+        return sessions;
+    }
+
+    QueuedWebSocketSession getBySessionId(String sessionId) {
+        return bySessionId.get(sessionId);
+    }
+
+    Collection<QueuedWebSocketSession> getByUserId(Long userId) {
+        return byUserId.getOrDefault(userId, Set.of());
+    }
+
+    Collection<QueuedWebSocketSession> getByEmail(String email) {
+        return byEmail.getOrDefault(email, Set.of());
+    }
+
+    Collection<QueuedWebSocketSession> getByRole(String role) {
+        return byRole.getOrDefault(role, Set.of());
+    }
+
+    Collection<QueuedWebSocketSession> all() {
+        return bySessionId.values();
+    }
+
+    Set<String> emails() {
+        return Set.copyOf(byEmail.keySet());
+    }
+
+    private void unindex(QueuedWebSocketSession session) {
+        discard(byUserId, session.getUserId(), session);
+        discard(byEmail, session.getEmail(), session);
+        discard(byRole, session.getRole(), session);
+    }
+
+    private static <K> void add(Map<K, Set<QueuedWebSocketSession>> index, K key, QueuedWebSocketSession session) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, sessions) -> {
+            Set<QueuedWebSocketSession> target = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            target.add(session);
+            return target;
+        });
+    }
+
+    private static <K> void discard(Map<K, Set<QueuedWebSocketSession>> index, K key, QueuedWebSocketSession session) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
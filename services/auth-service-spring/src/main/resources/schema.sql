@@ -0,0 +1,11 @@
+-- Runs after Hibernate schema update (spring.jpa.defer-datasource-initialization). Must stay idempotent.
+-- Runs with continue-on-error, so a statement that fails is logged and skipped rather than stopping startup.
+
+-- Admin user search: substring/prefix match on email and name.
+-- Needs the pg_trgm extension, which the service role usually cannot create: see postgres/init/01-extensions.sql.
+-- Without it these two statements are skipped and the search falls back to a sequential scan.
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops);
+
+-- Admin user listing: role filter with keyset pagination over id
+CREATE INDEX IF NOT EXISTS idx_users_role_id ON users (role, id);
@@ -1,5 +1,6 @@
 package com.dietdiary.diary.controller;
 
+import com.dietdiary.diary.domain.DailyNutrition;
 import com.dietdiary.diary.domain.Diary;
 import com.dietdiary.diary.service.DiaryService;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +35,42 @@ public class DiaryController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/range")
+    public ResponseEntity<?> getDiariesByDateRange(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Diary> diaries = diaryService.getDiariesByDateRange(userId, from, to);
+            response.put("message", "Diaries retrieved successfully");
+            response.put("data", diaries);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/aggregates")
+    public ResponseEntity<?> getDailyNutrition(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<DailyNutrition> days = diaryService.getDailyNutrition(userId, from, to);
+            response.put("message", "Daily nutrition retrieved successfully");
+            response.put("data", days);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createDiary(
             @RequestHeader("X-User-Id") Long userId,
@@ -47,6 +84,23 @@ public class DiaryController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> createDiaries(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestBody List<Diary> diaries) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Long> ids = diaryService.createDiaries(userId, diaries).stream().map(Diary::getId).toList();
+            response.put("message", "Diaries created successfully");
+            response.put("data", Map.of("ids", ids));
+            return new ResponseEntity<>(response, HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateDiary(
             @PathVariable Long id,
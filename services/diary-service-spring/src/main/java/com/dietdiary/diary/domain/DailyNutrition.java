@@ -0,0 +1,70 @@
+package com.dietdiary.diary.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Per-user, per-day totals of {@link Diary} entries. Read-only here; rows are written by
+ * {@link com.dietdiary.diary.repository.DailyNutritionRepository#applyDelta}.
+ */
+@Entity
+@Table(name = "daily_nutrition")
+@IdClass(DailyNutrition.Key.class)
+@Getter
+public class DailyNutrition {
+
+    @Id
+    private Long userId;
+
+    @Id
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private Double totalCalories;
+
+    @Column(nullable = false)
+    private Integer entryCount;
+
+    @Column(nullable = false)
+    private Integer breakfastCount;
+
+    @Column(nullable = false)
+    private Integer lunchCount;
+
+    @Column(nullable = false)
+    private Integer dinnerCount;
+
+    @Column(nullable = false)
+    private Integer snackCount;
+
+    @Column(nullable = false)
+    private Integer otherCount;
+
+    private LocalDateTime firstEntryAt;
+
+    private LocalDateTime lastEntryAt;
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private LocalDate date;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && Objects.equals(date, key.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, date);
+        }
+    }
+}
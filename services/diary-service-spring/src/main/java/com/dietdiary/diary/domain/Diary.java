@@ -9,13 +9,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "diaries")
+@Table(name = "diaries", indexes = @Index(name = "ix_diaries_user_date", columnList = "user_id, date"))
 @Getter
 @Setter
 public class Diary {
 
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts (see V4 migration).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "diaries_id_seq")
+    @SequenceGenerator(name = "diaries_id_seq", sequenceName = "diaries_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
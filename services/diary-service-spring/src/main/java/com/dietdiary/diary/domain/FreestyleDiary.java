@@ -6,7 +6,8 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "freestyle_diaries")
+@Table(name = "freestyle_diaries",
+        uniqueConstraints = @UniqueConstraint(name = "ux_freestyle_diaries_user_date", columnNames = {"user_id", "date"}))
 @Getter
 @Setter
 public class FreestyleDiary {
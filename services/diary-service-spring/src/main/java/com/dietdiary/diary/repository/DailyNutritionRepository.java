@@ -0,0 +1,62 @@
+package com.dietdiary.diary.repository;
+
+import com.dietdiary.diary.domain.DailyNutrition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyNutritionRepository extends JpaRepository<DailyNutrition, DailyNutrition.Key> {
+
+    List<DailyNutrition> findByUserIdAndDateBetweenOrderByDateAsc(Long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Adds the given deltas to a day's row, creating it if missing. A single upsert, so concurrent entries
+     * for the same day do not lose updates. {@code firstAt}/{@code lastAt} widen the first/last entry window;
+     * for changes that do not add an entry pass the entry's own creation time, which is already inside it.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO daily_nutrition (user_id, date, total_calories, entry_count, breakfast_count, lunch_count,
+                                         dinner_count, snack_count, other_count, first_entry_at, last_entry_at)
+            VALUES (:userId, :date, :calories, :entries, :breakfast, :lunch, :dinner, :snack, :other,
+                    :firstAt, :lastAt)
+            ON CONFLICT (user_id, date) DO UPDATE SET
+                total_calories  = daily_nutrition.total_calories + EXCLUDED.total_calories,
+                entry_count     = daily_nutrition.entry_count + EXCLUDED.entry_count,
+                breakfast_count = daily_nutrition.breakfast_count + EXCLUDED.breakfast_count,
+                lunch_count     = daily_nutrition.lunch_count + EXCLUDED.lunch_count,
+                dinner_count    = daily_nutrition.dinner_count + EXCLUDED.dinner_count,
+                snack_count     = daily_nutrition.snack_count + EXCLUDED.snack_count,
+                other_count     = daily_nutrition.other_count + EXCLUDED.other_count,
+                first_entry_at  = LEAST(daily_nutrition.first_entry_at, EXCLUDED.first_entry_at),
+                last_entry_at   = GREATEST(daily_nutrition.last_entry_at, EXCLUDED.last_entry_at)
+            """, nativeQuery = true)
+    void applyDelta(@Param("userId") Long userId, @Param("date") LocalDate date,
+                    @Param("calories") double calories, @Param("entries") int entries,
+                    @Param("breakfast") int breakfast, @Param("lunch") int lunch, @Param("dinner") int dinner,
+                    @Param("snack") int snack, @Param("other") int other,
+                    @Param("firstAt") LocalDateTime firstAt, @Param("lastAt") LocalDateTime lastAt);
+
+    /**
+     * After a removal: drops the day if it has no entries left, otherwise re-reads its first/last entry time
+     * (which cannot be maintained by deltas) from the day's rows in ix_diaries_user_date.
+     */
+    @Modifying
+    @Query(value = """
+            WITH removed AS (
+                DELETE FROM daily_nutrition WHERE user_id = :userId AND date = :date AND entry_count <= 0
+            )
+            UPDATE daily_nutrition n SET
+                first_entry_at = (SELECT MIN(created_at) FROM diaries d WHERE d.user_id = :userId AND d.date = :date),
+                last_entry_at  = (SELECT MAX(created_at) FROM diaries d WHERE d.user_id = :userId AND d.date = :date)
+            WHERE n.user_id = :userId AND n.date = :date AND n.entry_count > 0
+            """, nativeQuery = true)
+    void compactAfterRemoval(@Param("userId") Long userId, @Param("date") LocalDate date);
+}
@@ -1,14 +1,32 @@
 package com.dietdiary.diary.repository;
 
 import com.dietdiary.diary.domain.Diary;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DiaryRepository extends JpaRepository<Diary, Long> {
 
+    /**
+     * SELECT ... FOR UPDATE, so concurrent updates and deletes of one entry apply their
+     * daily_nutrition deltas one after another against the row's current values.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from Diary d where d.id = :id")
+    Optional<Diary> findByIdForUpdate(@Param("id") Long id);
+
     List<Diary> findByUserIdAndDate(Long userId, LocalDate date);
+
+    /**
+     * Served by a single range scan of ix_diaries_user_date.
+     */
+    List<Diary> findByUserIdAndDateBetweenOrderByDateAscIdAsc(Long userId, LocalDate from, LocalDate to);
 }
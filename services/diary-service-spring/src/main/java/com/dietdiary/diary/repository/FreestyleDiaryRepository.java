@@ -2,9 +2,23 @@ package com.dietdiary.diary.repository;
 
 import com.dietdiary.diary.domain.FreestyleDiary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.util.Optional;
 
 public interface FreestyleDiaryRepository extends JpaRepository<FreestyleDiary, Long> {
     Optional<FreestyleDiary> findByUserIdAndDate(Long userId, LocalDate date);
+
+    /**
+     * Inserts or overwrites the user's entry for the day in one statement, arbitrated by
+     * ux_freestyle_diaries_user_date, so concurrent saves for the same day converge on a single row.
+     */
+    @Query(value = """
+            INSERT INTO freestyle_diaries (user_id, date, text)
+            VALUES (:userId, :date, CAST(:text AS TEXT))
+            ON CONFLICT (user_id, date) DO UPDATE SET text = EXCLUDED.text
+            RETURNING id, user_id, date, text
+            """, nativeQuery = true)
+    FreestyleDiary upsert(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("text") String text);
 }
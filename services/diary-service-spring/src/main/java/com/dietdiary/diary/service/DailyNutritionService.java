@@ -0,0 +1,113 @@
+package com.dietdiary.diary.service;
+
+import com.dietdiary.diary.domain.DailyNutrition;
+import com.dietdiary.diary.domain.Diary;
+import com.dietdiary.diary.repository.DailyNutritionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps {@code daily_nutrition} in step with {@code diaries} by applying per-entry deltas.
+ * The on* methods must run inside the transaction that changes the entry, so both commit or roll back together.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DailyNutritionService {
+
+    private final DailyNutritionRepository repository;
+
+    public List<DailyNutrition> getRange(Long userId, LocalDate from, LocalDate to) {
+        return repository.findByUserIdAndDateBetweenOrderByDateAsc(userId, from, to);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCreated(Diary diary) {
+        new Delta().add(diary, 1).applyTo(repository, diary.getUserId(), diary.getDate());
+    }
+
+    /**
+     * Applies a batch of new entries with one upsert per user and day.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCreatedAll(List<Diary> diaries) {
+        Map<DayKey, Delta> deltas = new LinkedHashMap<>();
+        for (Diary diary : diaries) {
+            deltas.computeIfAbsent(new DayKey(diary.getUserId(), diary.getDate()), key -> new Delta()).add(diary, 1);
+        }
+        deltas.forEach((key, delta) -> delta.applyTo(repository, key.userId(), key.date()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUpdated(String oldMealType, Double oldCalories, Diary diary) {
+        LocalDateTime entryAt = entryTime(diary);
+        new Delta()
+                .add(oldMealType, -oldCalories, -1, entryAt)
+                .add(diary, 1)
+                .applyTo(repository, diary.getUserId(), diary.getDate());
+    }
+
+    /**
+     * Call after the entry's DELETE has been flushed, so the first/last entry times are re-read without it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onDeleted(Diary diary) {
+        new Delta().add(diary, -1).applyTo(repository, diary.getUserId(), diary.getDate());
+        repository.compactAfterRemoval(diary.getUserId(), diary.getDate());
+    }
+
+    private static LocalDateTime entryTime(Diary diary) {
+        return diary.getCreatedAt() != null ? diary.getCreatedAt() : LocalDateTime.now();
+    }
+
+    private record DayKey(Long userId, LocalDate date) {
+    }
+
+    /**
+     * Sum of entry changes for one day.
+     */
+    private static final class Delta {
+        private double calories;
+        private int entries;
+        private int breakfast;
+        private int lunch;
+        private int dinner;
+        private int snack;
+        private int other;
+        private LocalDateTime firstAt;
+        private LocalDateTime lastAt;
+
+        Delta add(Diary diary, int sign) {
+            return add(diary.getMealType(), sign * diary.getCalories(), sign, entryTime(diary));
+        }
+
+        Delta add(String mealType, double calories, int sign, LocalDateTime entryAt) {
+            this.calories += calories;
+            this.entries += sign;
+            switch (mealType != null ? mealType.toLowerCase(Locale.ROOT) : "") {
+                case "breakfast" -> breakfast += sign;
+                case "lunch" -> lunch += sign;
+                case "dinner" -> dinner += sign;
+                case "snack", "snacks" -> snack += sign;
+                default -> other += sign;
+            }
+            firstAt = firstAt == null || entryAt.isBefore(firstAt) ? entryAt : firstAt;
+            lastAt = lastAt == null || entryAt.isAfter(lastAt) ? entryAt : lastAt;
+            return this;
+        }
+
+        void applyTo(DailyNutritionRepository repository, Long userId, LocalDate date) {
+            repository.applyDelta(userId, date, calories, entries, breakfast, lunch, dinner, snack, other,
+                    firstAt, lastAt);
+        }
+    }
+}
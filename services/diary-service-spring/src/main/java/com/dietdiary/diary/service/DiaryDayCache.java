@@ -0,0 +1,306 @@
+package com.dietdiary.diary.service;
+
+import com.dietdiary.diary.domain.Diary;
+import com.dietdiary.diary.domain.FreestyleDiary;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of one user's diary data for one day: a bounded in-process tier in front of a shared
+ * Redis tier, keyed by (userId, date).
+ * <p>
+ * Writers call the {@code evict...AfterCommit} methods; once the transaction commits the day is dropped from both
+ * tiers and the invalidation is published on a Redis channel so every diary-service instance drops its local copy.
+ * Recent days (yesterday onwards) still receive writes and get short TTLs as a bound on any missed invalidation;
+ * older days rarely change and stay cached much longer. A Redis outage degrades to database reads.
+ * <p>
+ * Each day also has a version key that every eviction increments. A reader that misses Redis notes the version
+ * before querying the database and only stores its result if the version is still the same, so a load that read
+ * the rows before a write committed cannot put them back into Redis after that write's eviction.
+ */
+@Service
+public class DiaryDayCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiaryDayCache.class);
+    private static final String INVALIDATION_CHANNEL = "diary:day-cache:invalidate";
+    private static final String KEY_PREFIX = "diary:day:";
+    private static final String VERSION_PREFIX = "diary:day-version:";
+    private static final String NO_VERSION = "0";
+
+    // KEYS[1] value, KEYS[2] version; ARGV[1] version seen before the load, ARGV[2] value, ARGV[3] TTL in ms
+    private static final RedisScript<Long> FILL_IF_UNCHANGED_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS: value and version key pairs; ARGV[1] version TTL in ms
+    private static final RedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 2 do
+                redis.call('DEL', KEYS[i])
+                redis.call('INCR', KEYS[i + 1])
+                redis.call('PEXPIRE', KEYS[i + 1], ARGV[1])
+            end
+            return #KEYS / 2
+            """, Long.class);
+
+    private enum Kind {
+        ENTRIES("e", Diary.class),
+        FREESTYLE("f", FreestyleDiary.class);
+
+        private final String code;
+        private final Class<?> type;
+
+        Kind(String code, Class<?> type) {
+            this.code = code;
+            this.type = type;
+        }
+
+        static Kind fromCode(String code) {
+            for (Kind kind : values()) {
+                if (kind.code.equals(code)) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cache kind: " + code);
+        }
+    }
+
+    private record Key(Kind kind, long userId, LocalDate date) {
+        String redisKey() {
+            return KEY_PREFIX + kind.code + ":" + userId + ":" + date;
+        }
+
+        String versionKey() {
+            return VERSION_PREFIX + kind.code + ":" + userId + ":" + date;
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ZoneId zone;
+    private final Duration localRecentTtl;
+    private final Duration localPastTtl;
+    private final Duration redisRecentTtl;
+    private final Duration redisPastTtl;
+    private final Cache<Key, List<?>> local;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final Counter redisErrors;
+    private final Timer databaseLoad;
+    private final Timer invalidationLag;
+
+    public DiaryDayCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                         RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry,
+                         @Value("${app.diary-cache.max-size:20000}") long maxSize,
+                         @Value("${app.diary-cache.zone:Asia/Seoul}") String zone,
+                         @Value("${app.diary-cache.local-ttl.recent:2m}") Duration localRecentTtl,
+                         @Value("${app.diary-cache.local-ttl.past:1h}") Duration localPastTtl,
+                         @Value("${app.diary-cache.redis-ttl.recent:15m}") Duration redisRecentTtl,
+                         @Value("${app.diary-cache.redis-ttl.past:24h}") Duration redisPastTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.zone = ZoneId.of(zone);
+        this.localRecentTtl = localRecentTtl;
+        this.localPastTtl = localPastTtl;
+        this.redisRecentTtl = redisRecentTtl;
+        this.redisPastTtl = redisPastTtl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Key, List<?>>() {
+                    @Override
+                    public long expireAfterCreate(Key key, List<?> value, long currentTime) {
+                        return ttl(key.date(), localRecentTtl, localPastTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, List<?> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, List<?> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "diary.day");
+        Gauge.builder("diary.day.cache.hit.ratio", local, cache -> cache.stats().hitRate())
+                .description("Hit ratio of the in-process daily diary cache")
+                .register(meterRegistry);
+        this.redisHits = redisCounter(meterRegistry, "hit");
+        this.redisMisses = redisCounter(meterRegistry, "miss");
+        this.redisErrors = redisCounter(meterRegistry, "error");
+        this.databaseLoad = Timer.builder("diary.day.cache.database.load")
+                .description("Time spent loading a day from the database after missing both cache tiers")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("diary.day.cache.invalidation.lag")
+                .description("Delay between publishing a daily diary cache invalidation and applying it on this instance")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public List<Diary> getEntries(Long userId, LocalDate date, Supplier<List<Diary>> loader) {
+        return get(new Key(Kind.ENTRIES, userId, date), loader);
+    }
+
+    public Optional<FreestyleDiary> getFreestyle(Long userId, LocalDate date, Supplier<Optional<FreestyleDiary>> loader) {
+        // Stored as a zero- or one-element list so that "no entry yet" is cached too
+        List<FreestyleDiary> found = get(new Key(Kind.FREESTYLE, userId, date),
+                () -> loader.get().map(List::of).orElse(List.of()));
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Drops the user's entries for the given days on every instance once the current transaction commits
+     * (immediately when there is none).
+     */
+    public void evictEntriesAfterCommit(Long userId, Collection<LocalDate> dates) {
+        evictAfterCommit(Kind.ENTRIES, userId, dates);
+    }
+
+    public void evictFreestyleAfterCommit(Long userId, LocalDate date) {
+        evictAfterCommit(Kind.FREESTYLE, userId, List.of(date));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 4);
+        try {
+            Kind kind = Kind.fromCode(parts[0]);
+            long userId = Long.parseLong(parts[1]);
+            long publishedAt = Long.parseLong(parts[2]);
+            for (String date : parts[3].split(",")) {
+                local.invalidate(new Key(kind, userId, LocalDate.parse(date)));
+            }
+            invalidationLag.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            logger.warn("[DiaryDayCache] Ignoring malformed invalidation message: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> get(Key key, Supplier<List<T>> loader) {
+        return (List<T>) local.get(key, k -> load(k, loader));
+    }
+
+    private <T> List<T> load(Key key, Supplier<List<T>> loader) {
+        String redisKey = key.redisKey();
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, key.kind().type);
+        String version = null;
+        try {
+            List<String> cached = redisTemplate.opsForValue().multiGet(List.of(redisKey, key.versionKey()));
+            String json = cached.get(0);
+            version = Objects.requireNonNullElse(cached.get(1), NO_VERSION);
+            if (json != null) {
+                redisHits.increment();
+                return List.copyOf(objectMapper.<List<T>>readValue(json, listType));
+            }
+            redisMisses.increment();
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("[DiaryDayCache] Redis read failed for {}: {}", redisKey, e.getMessage());
+        }
+
+        List<T> loaded = List.copyOf(databaseLoad.record(loader));
+        if (version == null) {
+            return loaded;
+        }
+        try {
+            // Skipped if the day was evicted while loading: the rows may predate that write
+            redisTemplate.execute(FILL_IF_UNCHANGED_SCRIPT, List.of(redisKey, key.versionKey()), version,
+                    objectMapper.writeValueAsString(loaded),
+                    String.valueOf(ttl(key.date(), redisRecentTtl, redisPastTtl).toMillis()));
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.warn("[DiaryDayCache] Redis write failed for {}: {}", redisKey, e.getMessage());
+        }
+        return loaded;
+    }
+
+    private void evictAfterCommit(Kind kind, Long userId, Collection<LocalDate> dates) {
+        Set<LocalDate> days = dates.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (userId == null || days.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(kind, userId, days);
+                }
+            });
+        } else {
+            evict(kind, userId, days);
+        }
+    }
+
+    private void evict(Kind kind, long userId, Set<LocalDate> dates) {
+        List<String> redisKeys = new ArrayList<>(dates.size() * 2);
+        for (LocalDate date : dates) {
+            Key key = new Key(kind, userId, date);
+            local.invalidate(key);
+            redisKeys.add(key.redisKey());
+            redisKeys.add(key.versionKey());
+        }
+        try {
+            // The version outlives any value written under it, so a stale fill can never see it missing again
+            redisTemplate.execute(EVICT_SCRIPT, redisKeys, String.valueOf(redisPastTtl.plus(redisRecentTtl).toMillis()));
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, kind.code + ":" + userId + ":" + System.currentTimeMillis()
+                    + ":" + dates.stream().map(LocalDate::toString).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            logger.error("[DiaryDayCache] Failed to invalidate {} days for user {}: {}", dates.size(), userId, e.getMessage());
+        }
+    }
+
+    private Duration ttl(LocalDate date, Duration recent, Duration past) {
+        return date.isBefore(LocalDate.now(zone).minusDays(1)) ? past : recent;
+    }
+
+    private static Counter redisCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("diary.day.cache.redis")
+                .description("Lookups against the Redis tier of the daily diary cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
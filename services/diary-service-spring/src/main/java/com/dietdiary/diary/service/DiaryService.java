@@ -1,48 +1,131 @@
 package com.dietdiary.diary.service;
 
+import com.dietdiary.diary.domain.DailyNutrition;
 import com.dietdiary.diary.domain.Diary;
 import com.dietdiary.diary.repository.DiaryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class DiaryService {
 
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final DiaryRepository diaryRepository;
+    private final DailyNutritionService dailyNutritionService;
+    private final DiaryDayCache diaryDayCache;
 
+    /**
+     * Served from {@link DiaryDayCache}. Runs outside a transaction so cache hits never check out a connection.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Diary> getDiariesByDate(Long userId, LocalDate date) {
-        return diaryRepository.findByUserIdAndDate(userId, date);
+        return diaryDayCache.getEntries(userId, date, () -> diaryRepository.findByUserIdAndDate(userId, date));
+    }
+
+    /**
+     * Returns all entries from {@code from} to {@code to} inclusive, ordered by date.
+     * @throws IllegalArgumentException if the range is reversed or longer than {@value #MAX_RANGE_DAYS} days.
+     */
+    public List<Diary> getDiariesByDateRange(Long userId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return diaryRepository.findByUserIdAndDateBetweenOrderByDateAscIdAsc(userId, from, to);
+    }
+
+    /**
+     * Returns the per-day totals from {@code from} to {@code to} inclusive, one row per day with entries.
+     * @throws IllegalArgumentException if the range is reversed or longer than {@value #MAX_RANGE_DAYS} days.
+     */
+    public List<DailyNutrition> getDailyNutrition(Long userId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return dailyNutritionService.getRange(userId, from, to);
     }
 
     @Transactional
     public Diary createDiary(Diary diary) {
-        return diaryRepository.save(diary);
+        Diary saved = diaryRepository.save(diary);
+        dailyNutritionService.onCreated(saved);
+        diaryDayCache.evictEntriesAfterCommit(saved.getUserId(), Collections.singleton(saved.getDate()));
+        return saved;
+    }
+
+    /**
+     * Inserts many entries (any dates) in one transaction. Ids come from the pooled sequence, so the rows go out
+     * as JDBC batches, and the daily aggregates get one upsert per day.
+     * @return The saved entries, in request order.
+     * @throws IllegalArgumentException if the batch is empty, too large or has an incomplete entry.
+     */
+    @Transactional
+    public List<Diary> createDiaries(Long userId, List<Diary> diaries) {
+        if (diaries == null || diaries.isEmpty()) {
+            throw new IllegalArgumentException("At least one entry is required");
+        }
+        if (diaries.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch must not exceed " + MAX_BATCH_SIZE + " entries");
+        }
+        for (int i = 0; i < diaries.size(); i++) {
+            Diary diary = diaries.get(i);
+            if (diary == null || diary.getDate() == null || diary.getMealType() == null
+                    || diary.getFoodName() == null || diary.getCalories() == null) {
+                throw new IllegalArgumentException("Entry " + i + " requires date, mealType, foodName and calories");
+            }
+            diary.setId(null);
+            diary.setUserId(userId);
+        }
+
+        List<Diary> saved = diaryRepository.saveAllAndFlush(diaries);
+        dailyNutritionService.onCreatedAll(saved);
+        diaryDayCache.evictEntriesAfterCommit(userId, saved.stream().map(Diary::getDate).collect(Collectors.toSet()));
+        return saved;
     }
 
     @Transactional
     public Optional<Diary> updateDiary(Long id, Diary updatedDiary) {
-        return diaryRepository.findById(id)
+        return diaryRepository.findByIdForUpdate(id)
                 .map(diary -> {
+                    String oldMealType = diary.getMealType();
+                    Double oldCalories = diary.getCalories();
                     diary.setMealType(updatedDiary.getMealType());
                     diary.setFoodName(updatedDiary.getFoodName());
                     diary.setCalories(updatedDiary.getCalories());
-                    return diaryRepository.save(diary);
+                    Diary saved = diaryRepository.save(diary);
+                    dailyNutritionService.onUpdated(oldMealType, oldCalories, saved);
+                    diaryDayCache.evictEntriesAfterCommit(saved.getUserId(), Collections.singleton(saved.getDate()));
+                    return saved;
                 });
     }
 
     @Transactional
     public boolean deleteDiary(Long id) {
-        if (diaryRepository.existsById(id)) {
-            diaryRepository.deleteById(id);
-            return true;
+        return diaryRepository.findByIdForUpdate(id)
+                .map(diary -> {
+                    diaryRepository.delete(diary);
+                    diaryRepository.flush();
+                    dailyNutritionService.onDeleted(diary);
+                    diaryDayCache.evictEntriesAfterCommit(diary.getUserId(), Collections.singleton(diary.getDate()));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private static void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
         }
-        return false;
     }
 }
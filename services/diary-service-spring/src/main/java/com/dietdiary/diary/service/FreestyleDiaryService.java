@@ -4,6 +4,7 @@ import com.dietdiary.diary.domain.FreestyleDiary;
 import com.dietdiary.diary.repository.FreestyleDiaryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
@@ -15,20 +16,17 @@ import java.util.Optional;
 public class FreestyleDiaryService {
 
     private final FreestyleDiaryRepository repository;
+    private final DiaryDayCache diaryDayCache;
 
     public FreestyleDiary saveDiary(Long userId, LocalDate date, String text) {
-        FreestyleDiary diary = repository.findByUserIdAndDate(userId, date)
-                .orElse(new FreestyleDiary());
-
-        diary.setUserId(userId);
-        diary.setDate(date);
-        diary.setText(text);
-
-        return repository.save(diary);
+        FreestyleDiary saved = repository.upsert(userId, date, text);
+        diaryDayCache.evictFreestyleAfterCommit(userId, date);
+        return saved;
     }
 
-    @Transactional(readOnly = true)
+    // Served from DiaryDayCache; outside a transaction so cache hits never check out a connection
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<FreestyleDiary> getDiary(Long userId, LocalDate date) {
-        return repository.findByUserIdAndDate(userId, date);
+        return diaryDayCache.getFreestyle(userId, date, () -> repository.findByUserIdAndDate(userId, date));
     }
 }
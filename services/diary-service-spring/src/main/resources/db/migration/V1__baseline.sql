@@ -0,0 +1,18 @@
+-- Tables as previously created by hibernate ddl-auto=update.
+-- IF NOT EXISTS: the database is shared with auth-service, so existing installs already have these tables.
+CREATE TABLE IF NOT EXISTS diaries (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT           NOT NULL,
+    date       DATE             NOT NULL,
+    meal_type  VARCHAR(255)     NOT NULL,
+    food_name  VARCHAR(500)     NOT NULL,
+    calories   DOUBLE PRECISION NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS freestyle_diaries (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    date    DATE   NOT NULL,
+    text    TEXT
+);
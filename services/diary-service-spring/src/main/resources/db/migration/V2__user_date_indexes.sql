@@ -0,0 +1,11 @@
+-- Dashboard and range reads filter on (user_id, date).
+CREATE INDEX IF NOT EXISTS ix_diaries_user_date ON diaries (user_id, date);
+
+-- Freestyle entries are one per user and day. Keep the most recent row of any duplicates before enforcing it.
+DELETE FROM freestyle_diaries f
+USING freestyle_diaries newer
+WHERE f.user_id = newer.user_id
+  AND f.date = newer.date
+  AND f.id < newer.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_freestyle_diaries_user_date ON freestyle_diaries (user_id, date);
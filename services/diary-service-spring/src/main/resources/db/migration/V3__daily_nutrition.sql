@@ -0,0 +1,33 @@
+-- One row per user and day, kept up to date by DiaryService in the same transaction as the entry change.
+CREATE TABLE IF NOT EXISTS daily_nutrition (
+    user_id         BIGINT           NOT NULL,
+    date            DATE             NOT NULL,
+    total_calories  DOUBLE PRECISION NOT NULL DEFAULT 0,
+    entry_count     INTEGER          NOT NULL DEFAULT 0,
+    breakfast_count INTEGER          NOT NULL DEFAULT 0,
+    lunch_count     INTEGER          NOT NULL DEFAULT 0,
+    dinner_count    INTEGER          NOT NULL DEFAULT 0,
+    snack_count     INTEGER          NOT NULL DEFAULT 0,
+    other_count     INTEGER          NOT NULL DEFAULT 0,
+    first_entry_at  TIMESTAMP(6),
+    last_entry_at   TIMESTAMP(6),
+    PRIMARY KEY (user_id, date)
+);
+
+-- Backfill from existing entries.
+INSERT INTO daily_nutrition (user_id, date, total_calories, entry_count, breakfast_count, lunch_count,
+                             dinner_count, snack_count, other_count, first_entry_at, last_entry_at)
+SELECT user_id,
+       date,
+       SUM(calories),
+       COUNT(*),
+       COUNT(*) FILTER (WHERE LOWER(meal_type) = 'breakfast'),
+       COUNT(*) FILTER (WHERE LOWER(meal_type) = 'lunch'),
+       COUNT(*) FILTER (WHERE LOWER(meal_type) = 'dinner'),
+       COUNT(*) FILTER (WHERE LOWER(meal_type) IN ('snack', 'snacks')),
+       COUNT(*) FILTER (WHERE LOWER(meal_type) NOT IN ('breakfast', 'lunch', 'dinner', 'snack', 'snacks')),
+       MIN(created_at),
+       MAX(created_at)
+FROM diaries
+GROUP BY user_id, date
+ON CONFLICT (user_id, date) DO NOTHING;
@@ -0,0 +1,9 @@
+-- Diary ids now come from a Hibernate pooled sequence (allocationSize 50) instead of IDENTITY, so inserts can
+-- be batched. The column's own sequence is reused: step it by 50 and move it past the current maximum id.
+DO $$
+DECLARE
+    seq TEXT := pg_get_serial_sequence('diaries', 'id');
+BEGIN
+    EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', seq);
+    PERFORM setval(seq, GREATEST((SELECT COALESCE(MAX(id), 0) FROM diaries), 1));
+END $$;
@@ -0,0 +1,117 @@
+package com.dietdiary.diary;
+
+import com.dietdiary.diary.repository.DiaryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rows per second through {@code POST /diaries/batch} against the same rows sent as one {@code POST /diaries} each,
+ * on a real PostgreSQL and Redis. Opt-in, as it needs Docker and takes a while:
+ * <pre>
+ *   mvn test -Dtest=DiaryBatchInsertBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DiaryBatchInsertBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiaryBatchInsertBenchmarkTest.class);
+
+    private static final int ROWS = 5_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int WARMUP_ROWS = 1_000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DiaryRepository diaryRepository;
+
+    @Test
+    void batchEndpointInsertsMoreRowsPerSecondThanSingleCreates() throws Exception {
+        insertSingly(1L, WARMUP_ROWS);
+        insertInBatches(2L, WARMUP_ROWS);
+
+        long before = diaryRepository.count();
+        double single = rowsPerSecond(() -> insertSingly(3L, ROWS));
+        double batch = rowsPerSecond(() -> insertInBatches(4L, ROWS));
+
+        logger.info("POST /diaries x{}: {} rows/s", ROWS, Math.round(single));
+        logger.info("POST /diaries/batch ({}): {} rows/s ({}x)", BATCH_SIZE, Math.round(batch),
+                Math.round(batch / single * 10) / 10.0);
+        assertEquals(before + 2L * ROWS, diaryRepository.count());
+        assertTrue(batch > single, String.format(
+                "batch endpoint should insert more rows per second than single creates (%,.0f vs %,.0f rows/s)",
+                batch, single));
+    }
+
+    private void insertSingly(long userId, int rows) throws Exception {
+        for (int i = 0; i < rows; i++) {
+            mockMvc.perform(post("/diaries")
+                            .header("X-User-Id", userId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(entry(i))))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    private void insertInBatches(long userId, int rows) throws Exception {
+        for (int start = 0; start < rows; start += BATCH_SIZE) {
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (int i = start; i < Math.min(rows, start + BATCH_SIZE); i++) {
+                batch.add(entry(i));
+            }
+            mockMvc.perform(post("/diaries/batch")
+                            .header("X-User-Id", userId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    private static double rowsPerSecond(ThrowingRunnable insert) throws Exception {
+        long start = System.nanoTime();
+        insert.run();
+        return ROWS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    // A month of meals, four a day, so the aggregates see the same spread of days as a bulk import
+    private static Map<String, Object> entry(int index) {
+        return Map.of(
+                "date", FIRST_DAY.plusDays((index / 4) % 30).toString(),
+                "mealType", List.of("breakfast", "lunch", "dinner", "snack").get(index % 4),
+                "foodName", "benchmark food " + index,
+                "calories", 100.0 + index % 700);
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,77 @@
+package com.dietdiary.diary;
+
+import com.dietdiary.diary.domain.FreestyleDiary;
+import com.dietdiary.diary.service.FreestyleDiaryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class FreestyleDiaryConcurrencyTest {
+
+    private static final int WRITERS = 32;
+    private static final long USER_ID = 42L;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 1);
+
+    @Autowired
+    private FreestyleDiaryService freestyleDiaryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentSavesForOneDayLeaveOneRowWithTheLastText() throws Exception {
+        // The upsert holds the row lock until commit, so the order writers pass this point is the commit order
+        Queue<String> commitOrder = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                String text = "entry " + i;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        freestyleDiaryService.saveDiary(USER_ID, DATE, text);
+                        commitOrder.add(text);
+                    });
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String last = List.copyOf(commitOrder).get(WRITERS - 1);
+        List<String> rows = jdbcTemplate.queryForList(
+                "SELECT text FROM freestyle_diaries WHERE user_id = ? AND date = ?", String.class, USER_ID, DATE);
+        assertEquals(List.of(last), rows);
+        assertEquals(last, freestyleDiaryService.getDiary(USER_ID, DATE).map(FreestyleDiary::getText).orElse(null));
+    }
+}
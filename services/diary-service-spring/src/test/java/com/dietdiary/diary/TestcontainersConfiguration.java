@@ -0,0 +1,28 @@
+package com.dietdiary.diary;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * PostgreSQL and Redis in containers, on the same images as docker-compose.yml. Flyway builds the schema on startup
+ * and the datasource and Redis settings are replaced by the containers' (@ServiceConnection).
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class TestcontainersConfiguration {
+
+    @Bean
+    @ServiceConnection
+    PostgreSQLContainer<?> postgres() {
+        return new PostgreSQLContainer<>(DockerImageName.parse("postgres:17-alpine"));
+    }
+
+    @Bean
+    @ServiceConnection(name = "redis")
+    GenericContainer<?> redis() {
+        return new GenericContainer<>(DockerImageName.parse("redis:8-alpine")).withExposedPorts(6379);
+    }
+}